@@ -0,0 +1,98 @@
+package com.example.openapi.journal;
+
+import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery of one million books, either from a compacted snapshot or by replaying
+ * the whole log. {@code journal} reads the files only; {@code service} also rebuilds every index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class BookRecoveryBenchmark {
+
+    @Param("1000000")
+    private int books;
+
+    @Param({"snapshot", "log"})
+    private String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws Exception {
+        directory = Files.createTempDirectory("book-recovery");
+        FileBookJournal journal = open();
+        journal.recover();
+        List<Book> all = new ArrayList<>(books);
+        CompletableFuture<Void> last = null;
+        for (long id = 1; id <= books; id++) {
+            Book book = new Book(id, "Title of book " + id, "Author " + (id % 10_000));
+            all.add(book);
+            last = journal.submitPut(book);
+        }
+        last.join();
+        if (source.equals("snapshot")) {
+            journal.writeSnapshot(all, books, journal.lastSequenceNumber());
+        }
+        journal.destroy();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int journal() throws Exception {
+        FileBookJournal journal = open();
+        try {
+            return journal.recover().books().size();
+        } finally {
+            journal.destroy();
+        }
+    }
+
+    @Benchmark
+    public BookService service() throws Exception {
+        FileBookJournal journal = open();
+        try {
+            return new BookService(journal);
+        } finally {
+            journal.destroy();
+        }
+    }
+
+    private FileBookJournal open() {
+        return new FileBookJournal(directory, 1024, 64L * 1024 * 1024);
+    }
+}
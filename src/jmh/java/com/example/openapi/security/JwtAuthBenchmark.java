@@ -0,0 +1,63 @@
+package com.example.openapi.security;
+
+import com.example.openapi.cache.CustomCacheManager;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token check of {@link JwtAuthenticationFilter}: what it used to do (validate, then parse
+ * again for the subject, each time rebuilding the key and the parser) against one {@link JwtUtil#verify},
+ * and a repeat token served from {@link VerifiedTokenCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "supersecretkey_supersecretkey_supersecretkey";
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokens;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void issueToken() {
+        jwtUtil = new JwtUtil(SECRET, 3_600_000);
+        verifiedTokens = new VerifiedTokenCache(jwtUtil, new CustomCacheManager());
+        token = jwtUtil.generateToken(User.withUsername("alice").password("x").roles("USER").build());
+    }
+
+    @Benchmark
+    public String parseTwice() {
+        Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyOnce() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return verifiedTokens.verify(token);
+    }
+
+    private static Key key() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    }
+}
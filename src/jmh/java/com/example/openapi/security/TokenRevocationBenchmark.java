@@ -0,0 +1,63 @@
+package com.example.openapi.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the revocation check adds to a request in the common case, a token that was never revoked,
+ * with many revocations on the list: the Bloom filter probe alone, and together with the token digest
+ * the filter computes once per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    private static final int TOKENS = 4096;
+
+    @Param("100000")
+    private int revocations;
+
+    private TokenRevocationList revocationList;
+    private TokenDigest[] digests;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void revoke() {
+        revocationList = new TokenRevocationList(revocations, false, "");
+        Instant expiry = Instant.now().plusSeconds(3_600);
+        for (int i = 0; i < revocations; i++) {
+            revocationList.revoke(TokenDigest.of("revoked-" + i), expiry);
+        }
+        digests = new TokenDigest[TOKENS];
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            // About the length of a signed token with a subject and one role
+            tokens[i] = "eyJhbGciOiJIUzI1NiJ9.valid-" + i + ".".repeat(120);
+            digests[i] = TokenDigest.of(tokens[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        return revocationList.isRevoked(digests[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    @Benchmark
+    public boolean digestAndNotRevoked() {
+        return revocationList.isRevoked(TokenDigest.of(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of {@link BookService#searchBooks} over a synthetic catalogue of one million books
+ * with Zipf-like word frequencies, so common words have long postings and rare words short ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class BookSearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "te", "vo", "su", "ne", "di", "ba", "zo", "pe", "an", "ul", "er", "is"
+    };
+
+    @Param("1000000")
+    private int books;
+
+    @Param({"rare", "common", "two-words", "prefix"})
+    private String queryType;
+
+    private BookService bookService;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        bookService = new BookService();
+        Random random = new Random(42);
+        for (int i = 0; i < books; i++) {
+            String title = word(random) + " " + word(random) + " " + word(random);
+            String author = word(random) + " " + word(random);
+            bookService.createBook(new Book(null, title, author));
+        }
+        query = switch (queryType) {
+            case "rare" -> wordAt(20_000);
+            case "common" -> wordAt(1);
+            case "two-words" -> wordAt(3) + " " + wordAt(40);
+            default -> wordAt(300).substring(0, 3);
+        };
+    }
+
+    @Benchmark
+    public List<Book> search() {
+        return bookService.searchBooks(query, 20);
+    }
+
+    // Word rank drawn from a power law over ~65k possible words
+    private static String word(Random random) {
+        return wordAt((int) Math.pow(65_536, random.nextDouble()));
+    }
+
+    private static String wordAt(int rank) {
+        StringBuilder word = new StringBuilder();
+        int remaining = rank;
+        do {
+            word.append(SYLLABLES[remaining % SYLLABLES.length]);
+            remaining /= SYLLABLES.length;
+        } while (remaining > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+import com.example.openapi.journal.NoOpBookJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Create and read throughput of {@link BookService} at 1, 4, 16 and 64 threads, unsharded against
+ * sharded ({@code books.store.shards}). Reads look up random ids of a 100k-book catalogue. Each thread
+ * deletes its own oldest book once it has created a window of them, so the catalogue (and the heap)
+ * stays the same size however long a create benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class ShardedBookServiceBenchmark {
+
+    private static final int WINDOW = 1024;
+
+    @Param("100000")
+    private int books;
+
+    @Param({"1", "16"})
+    private int shards;
+
+    private BookService bookService;
+    private long[] ids;
+
+    @State(Scope.Thread)
+    public static class Created {
+        final ArrayDeque<Long> window = new ArrayDeque<>(WINDOW + 1);
+    }
+
+    @Setup(Level.Trial)
+    public void populate() {
+        bookService = new BookService(new NoOpBookJournal(), null, 65_536, shards);
+        for (int i = 0; i < books; i++) {
+            bookService.createBook(new Book(null, "Title " + i, "Author " + (i % 1000)));
+        }
+        List<Book> all = bookService.getAllBooks();
+        ids = all.stream().mapToLong(Book::getId).toArray();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Book create1(Created created) {
+        return create(created);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Book create4(Created created) {
+        return create(created);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Book create16(Created created) {
+        return create(created);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Book create64(Created created) {
+        return create(created);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Book read1() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Book read4() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Book read16() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Book read64() {
+        return read();
+    }
+
+    // Fans out to every shard in parallel when sharded
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Book> listAll() {
+        return bookService.getAllBooks();
+    }
+
+    private Book create(Created created) {
+        Book book = bookService.createBook(new Book(null, "New title", "New author"));
+        created.window.addLast(book.getId());
+        if (created.window.size() > WINDOW) {
+            bookService.deleteBook(created.window.removeFirst());
+        }
+        return book;
+    }
+
+    private Book read() {
+        return bookService.findBookById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.openapi.util;
+
+import com.example.openapi.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write throughput of the book store map, {@link ConcurrentLongMap} against the
+ * {@code ConcurrentHashMap<Long, Book>} it replaced, over one million random ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class LongMapBenchmark {
+
+    @Param("1000000")
+    private int books;
+
+    @Param({"hash", "long"})
+    private String map;
+
+    private ConcurrentHashMap<Long, Book> hashMap;
+    private ConcurrentLongMap<Book> longMap;
+    private Book book;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        hashMap = new ConcurrentHashMap<>();
+        longMap = new ConcurrentLongMap<>(1024, 256);
+        for (long id = 1; id <= books; id++) {
+            Book value = new Book(id, "Title " + id, "Author " + (id % 1000));
+            if (map.equals("hash")) {
+                hashMap.put(id, value);
+            } else {
+                longMap.put(id, value);
+            }
+        }
+        book = new Book(0L, "Replacement", "Author");
+    }
+
+    @Benchmark
+    public Book read() {
+        long id = ThreadLocalRandom.current().nextLong(1, books + 1);
+        return map.equals("hash") ? hashMap.get(id) : longMap.get(id);
+    }
+
+    // Same shape as BookService writes: replace an existing id through compute
+    @Benchmark
+    public Book write() {
+        long id = ThreadLocalRandom.current().nextLong(1, books + 1);
+        return map.equals("hash")
+                ? hashMap.compute(id, (key, previous) -> book)
+                : longMap.compute(id, (key, previous) -> book);
+    }
+}
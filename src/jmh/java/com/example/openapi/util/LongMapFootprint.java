@@ -0,0 +1,73 @@
+package com.example.openapi.util;
+
+import com.example.openapi.cache.CacheSettings;
+import com.example.openapi.cache.CustomCache;
+import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookService;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prints retained sizes per book: the bare store for both map types at one million entries, then the
+ * whole {@link BookService} (store, id/author/title indexes, search index and change log) and a full
+ * "books" cache at its configured maximum size. The books themselves are left out of every total.
+ * The service is measured at a smaller catalogue, since walking its object graph needs far more heap
+ * than the graph itself; its per-book cost does not depend on the catalogue size.
+ */
+public class LongMapFootprint {
+
+    private static final int BOOKS = 1_000_000;
+    private static final int SERVICE_BOOKS = 200_000;
+    private static final int CACHED_BOOKS = 10_000;
+
+    public static void main(String[] args) {
+        storeOnly();
+        wholeService();
+    }
+
+    // Every entry maps to the same book, so the totals are the per-entry overhead of the map itself
+    private static void storeOnly() {
+        Book book = new Book(1L, "Title", "Author");
+        ConcurrentHashMap<Long, Book> hashMap = new ConcurrentHashMap<>();
+        ConcurrentLongMap<Book> longMap = new ConcurrentLongMap<>(1024, 256);
+        for (long id = 1; id <= BOOKS; id++) {
+            hashMap.put(id, book);
+            longMap.put(id, book);
+        }
+        long bookSize = GraphLayout.parseInstance(book).totalSize();
+        report("ConcurrentHashMap<Long, Book>", GraphLayout.parseInstance(hashMap).totalSize() - bookSize, BOOKS);
+        report("ConcurrentLongMap<Book>", GraphLayout.parseInstance(longMap).totalSize() - bookSize, BOOKS);
+    }
+
+    private static void wholeService() {
+        BookService service = new BookService();
+        for (int i = 0; i < SERVICE_BOOKS; i++) {
+            service.createBook(new Book(null, "Title " + i, "Author " + (i % 10_000)));
+        }
+        List<Book> books = new ArrayList<>(SERVICE_BOOKS + 3);
+        service.iterateBooks().forEach(books::add);
+        Object[] stored = books.toArray();
+        long bookSize = GraphLayout.parseInstance((Object) stored).totalSize()
+                - GraphLayout.parseInstance((Object) new Object[stored.length]).totalSize();
+        report("BookService", GraphLayout.parseInstance(service).totalSize() - bookSize, stored.length);
+
+        CacheSettings settings = new CacheSettings();
+        settings.setMaximumSize(CACHED_BOOKS);
+        settings.setLongKeys(true);
+        CustomCache cache = new CustomCache("books", settings, Runnable::run);
+        for (int i = 0; i < CACHED_BOOKS; i++) {
+            cache.put(books.get(i).getId(), books.get(i));
+        }
+        Object[] cached = books.subList(0, CACHED_BOOKS).toArray();
+        long cachedSize = GraphLayout.parseInstance((Object) cached).totalSize()
+                - GraphLayout.parseInstance((Object) new Object[cached.length]).totalSize();
+        report("CustomCache books", GraphLayout.parseInstance(cache).totalSize() - cachedSize, CACHED_BOOKS);
+    }
+
+    private static void report(String name, long bytes, int entries) {
+        System.out.printf("%-30s %,12d bytes  %6.1f bytes/entry%n", name, bytes, (double) bytes / entries);
+    }
+}
@@ -8,5 +8,7 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface AuditLog {
+    // Log one record with the returned summary instead of before/after records with every parameter
+    boolean summarize() default false;
 }
 
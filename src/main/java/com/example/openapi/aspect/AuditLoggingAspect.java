@@ -24,8 +24,11 @@ public class AuditLoggingAspect {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    @Before("@annotation(com.example.openapi.aspect.AuditLog)")
-    public void logBefore(JoinPoint joinPoint) {
+    @Before("@annotation(auditLog)")
+    public void logBefore(JoinPoint joinPoint, AuditLog auditLog) {
+        if (auditLog.summarize()) {
+            return;
+        }
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
         String username = getCurrentUsername();
@@ -43,8 +46,11 @@ public class AuditLoggingAspect {
         log.info(logMessage);
     }
 
-    @After("@annotation(com.example.openapi.aspect.AuditLog)")
-    public void logAfter(JoinPoint joinPoint) {
+    @After("@annotation(auditLog)")
+    public void logAfter(JoinPoint joinPoint, AuditLog auditLog) {
+        if (auditLog.summarize()) {
+            return;
+        }
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
         String username = getCurrentUsername();
@@ -67,9 +73,9 @@ public class AuditLoggingAspect {
         log.info(logMessage);
     }
 
-    @AfterReturning(pointcut = "@annotation(com.example.openapi.aspect.AuditLog)", 
+    @AfterReturning(pointcut = "@annotation(auditLog)", 
                     returning = "result")
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
+    public void logAfterReturning(JoinPoint joinPoint, AuditLog auditLog, Object result) {
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
         String username = getCurrentUsername();
@@ -0,0 +1,25 @@
+package com.example.openapi.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class CacheEntry {
+
+    final Object value;
+    final long writeNanos;
+    // Loader that produced the value (only for get(key, Callable)); lets refresh-ahead reload it
+    final Callable<?> loader;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+    volatile long accessNanos;
+
+    CacheEntry(Object value, Callable<?> loader, long now) {
+        this(value, loader, now, now);
+    }
+
+    CacheEntry(Object value, Callable<?> loader, long writeNanos, long accessNanos) {
+        this.value = value;
+        this.loader = loader;
+        this.writeNanos = writeNanos;
+        this.accessNanos = accessNanos;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.openapi.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private CacheSettings defaults = new CacheSettings();
+    private Map<String, CacheSettings> specs = new HashMap<>();
+    // Background pool shared by all caches for refresh-ahead reloads
+    private int refreshThreads = 2;
+    private int refreshQueueCapacity = 256;
+    private Snapshot snapshot = new Snapshot();
+
+    public CacheSettings settingsFor(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Snapshot {
+        // Restore on startup and write on shutdown; on-demand snapshots work either way
+        private boolean enabled;
+        private String path = "data/cache-snapshot.bin";
+    }
+}
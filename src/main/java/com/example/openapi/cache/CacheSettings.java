@@ -0,0 +1,51 @@
+package com.example.openapi.cache;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+public class CacheSettings {
+    // 0 means unbounded
+    private long maximumSize;
+    // Estimated bytes; takes precedence over maximumSize when set
+    private long maximumWeight;
+    // Null means entries never expire on that basis
+    private Duration expireAfterWrite;
+    private Duration expireAfterAccess;
+    // Reload entries read within this window before expiry in the background; null disables
+    private Duration refreshAhead;
+    // Entries evicted from a bounded cache are demoted to this much direct memory; null disables
+    private DataSize offHeapCapacity;
+    private DataSize offHeapSlabSize = DataSize.ofMegabytes(1);
+    // Number of Space-Saving counters used to find the most requested keys; 0 disables tracking
+    private int hotKeyCapacity;
+    // Remember keys whose load returned null for this long; null disables negative caching
+    private Duration negativeTtl;
+    private long negativeMaximumSize = 1000;
+    // Keep Long keys unboxed in a primitive map; keys of other types still work
+    private boolean longKeys;
+    // Write entries to cache snapshots; turn off for caches keyed by in-memory state that restarts with the process
+    private boolean snapshot = true;
+
+    public boolean isBounded() {
+        return maximumSize > 0 || maximumWeight > 0;
+    }
+
+    public boolean isWeighted() {
+        return maximumWeight > 0;
+    }
+
+    public boolean isOffHeap() {
+        return offHeapCapacity != null && offHeapCapacity.toBytes() > 0;
+    }
+
+    public boolean isNegativeCaching() {
+        return negativeTtl != null && !negativeTtl.isZero() && negativeMaximumSize > 0;
+    }
+
+    public boolean isExpiring() {
+        return expireAfterWrite != null || expireAfterAccess != null;
+    }
+}
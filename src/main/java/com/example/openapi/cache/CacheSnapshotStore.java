@@ -0,0 +1,149 @@
+package com.example.openapi.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary cache snapshot file:
+ * <pre>
+ * magic:int version:int createdAtMillis:long cacheCount:int
+ *   nameLength:short name:utf8 entryCount:int
+ *     keyTag:byte key (long | utf8 string | serialized) valueLength:int value:bytes ageMillis:long
+ * </pre>
+ * Written to a temp file and moved into place; read back through a memory-mapped buffer.
+ */
+class CacheSnapshotStore {
+
+    private static final int MAGIC = 0x43534e50;
+    private static final int VERSION = 1;
+    private static final byte KEY_LONG = 1;
+    private static final byte KEY_STRING = 2;
+    private static final byte KEY_SERIALIZED = 3;
+
+    private final ValueSerializer serializer;
+
+    CacheSnapshotStore(ValueSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    record SnapshotEntry(Object key, Object value, long ageMillis) {
+    }
+
+    long write(Path path, Map<String, List<SnapshotEntry>> caches) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long entries = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(caches.size());
+            for (Map.Entry<String, List<SnapshotEntry>> cache : caches.entrySet()) {
+                byte[] name = cache.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                // Entries whose value cannot be serialized are skipped, so count them first
+                List<byte[][]> encoded = new ArrayList<>(cache.getValue().size());
+                List<Long> ages = new ArrayList<>(cache.getValue().size());
+                for (SnapshotEntry entry : cache.getValue()) {
+                    try {
+                        encoded.add(new byte[][]{encodeKey(entry.key()), serializer.serialize(entry.value())});
+                        ages.add(entry.ageMillis());
+                    } catch (RuntimeException ignored) {
+                        // not serializable; leave it out of the snapshot
+                    }
+                }
+                out.writeInt(encoded.size());
+                for (int i = 0; i < encoded.size(); i++) {
+                    out.write(encoded.get(i)[0]);
+                    out.writeInt(encoded.get(i)[1].length);
+                    out.write(encoded.get(i)[1]);
+                    out.writeLong(ages.get(i));
+                }
+                entries += encoded.size();
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
+    /**
+     * Returns the snapshot contents with ages adjusted for the time spent on disk,
+     * or an empty map if the file is missing or not a snapshot of this version.
+     */
+    Map<String, List<SnapshotEntry>> read(Path path) throws IOException {
+        Map<String, List<SnapshotEntry>> caches = new LinkedHashMap<>();
+        if (!Files.isRegularFile(path)) {
+            return caches;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return caches;
+            }
+            long offlineMillis = Math.max(0, System.currentTimeMillis() - buffer.getLong());
+            int cacheCount = buffer.getInt();
+            for (int c = 0; c < cacheCount; c++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                int entryCount = buffer.getInt();
+                List<SnapshotEntry> entries = new ArrayList<>(entryCount);
+                for (int e = 0; e < entryCount; e++) {
+                    Object key = decodeKey(buffer);
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    long ageMillis = buffer.getLong() + offlineMillis;
+                    entries.add(new SnapshotEntry(key, serializer.deserialize(value), ageMillis));
+                }
+                caches.put(new String(name, StandardCharsets.UTF_8), entries);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated cache snapshot " + path, e);
+        }
+        return caches;
+    }
+
+    private byte[] encodeKey(Object key) {
+        if (key instanceof Long id) {
+            return ByteBuffer.allocate(9).put(KEY_LONG).putLong(id).array();
+        }
+        if (key instanceof String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(5 + bytes.length).put(KEY_STRING).putInt(bytes.length).put(bytes).array();
+        }
+        byte[] bytes = serializer.serialize(key);
+        return ByteBuffer.allocate(5 + bytes.length).put(KEY_SERIALIZED).putInt(bytes.length).put(bytes).array();
+    }
+
+    private Object decodeKey(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        if (tag == KEY_LONG) {
+            return buffer.getLong();
+        }
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return switch (tag) {
+            case KEY_STRING -> new String(bytes, StandardCharsets.UTF_8);
+            case KEY_SERIALIZED -> serializer.deserialize(bytes);
+            default -> throw new IOException("Unknown key tag " + tag);
+        };
+    }
+}
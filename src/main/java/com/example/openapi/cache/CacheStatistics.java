@@ -0,0 +1,74 @@
+package com.example.openapi.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counters so recording a hit never contends with other readers.
+ */
+public class CacheStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoadSuccess(long loadNanos) {
+        loadSuccesses.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+    void recordLoadFailure(long loadNanos) {
+        loadFailures.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+    void recordEvictions(int count) {
+        evictions.add(count);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(),
+                totalLoadNanos.sum(), evictions.sum());
+    }
+
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        loadSuccesses.reset();
+        loadFailures.reset();
+        totalLoadNanos.reset();
+        evictions.reset();
+    }
+
+    public record Snapshot(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                           long totalLoadNanos, long evictionCount) {
+
+        public long requestCount() {
+            return hitCount + missCount;
+        }
+
+        public double hitRatio() {
+            long requests = requestCount();
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        public long loadCount() {
+            return loadSuccessCount + loadFailureCount;
+        }
+
+        public double averageLoadPenaltyMillis() {
+            long loads = loadCount();
+            return loads == 0 ? 0.0 : totalLoadNanos / 1_000_000.0 / loads;
+        }
+    }
+}
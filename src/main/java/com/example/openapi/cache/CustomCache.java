@@ -1,19 +1,91 @@
 package com.example.openapi.cache;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.Cache.ValueRetrievalException;
 import org.springframework.cache.support.SimpleValueWrapper;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+@Slf4j
 public class CustomCache implements Cache {
 
+    // Returned by lookup() for a key known to be missing, as opposed to null for "not cached"
+    private static final Object NEGATIVE_HIT = new Object();
+
     private final String name;
-    private final ConcurrentHashMap<Object, Object> store = new ConcurrentHashMap<>();
+    private final CacheSettings settings;
+    private final EntryStore store;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Null when the cache is unbounded. Writes take the lock; reads only record access when the
+    // lock is free, so a contended read skips the reordering instead of waiting for it. Loads check
+    // that they are still attached and cache their result under the same lock, bounded or not.
+    private final TinyLfuPolicy policy;
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAheadNanos;
+    private final Executor refreshExecutor;
+    // Null unless an off-heap capacity is configured for a bounded cache
+    private final OffHeapTier offHeapTier;
+    private final HotKeyTracker hotKeyTracker;
+    // Null unless negative caching is configured
+    private final NegativeCache negativeCache;
 
     public CustomCache(String name) {
+        this(name, new CacheSettings());
+    }
+
+    public CustomCache(String name, CacheSettings settings) {
+        this(name, settings, ForkJoinPool.commonPool());
+    }
+
+    public CustomCache(String name, CacheSettings settings, Executor refreshExecutor) {
+        this(name, settings, refreshExecutor, new JdkValueSerializer());
+    }
+
+    public CustomCache(String name, CacheSettings settings, Executor refreshExecutor, ValueSerializer serializer) {
         this.name = name;
+        this.settings = settings;
+        this.refreshExecutor = refreshExecutor;
+        this.store = EntryStore.create(settings);
+        if (settings.isWeighted()) {
+            this.policy = new TinyLfuPolicy(settings.getMaximumWeight(),
+                    settings.getMaximumSize() > 0 ? settings.getMaximumSize() : settings.getMaximumWeight() / 256);
+        } else if (settings.isBounded()) {
+            this.policy = new TinyLfuPolicy(settings.getMaximumSize(), settings.getMaximumSize());
+        } else {
+            this.policy = null;
+        }
+        this.expireAfterWriteNanos = toNanos(settings.getExpireAfterWrite());
+        this.expireAfterAccessNanos = toNanos(settings.getExpireAfterAccess());
+        this.refreshAheadNanos = settings.getRefreshAhead() != null ? settings.getRefreshAhead().toNanos() : 0;
+        this.offHeapTier = policy != null && settings.isOffHeap()
+                ? new OffHeapTier(settings.getOffHeapCapacity().toBytes(),
+                        (int) settings.getOffHeapSlabSize().toBytes(), serializer)
+                : null;
+        this.hotKeyTracker = settings.getHotKeyCapacity() > 0 ? new HotKeyTracker(settings.getHotKeyCapacity()) : null;
+        this.negativeCache = settings.isNegativeCaching()
+                ? new NegativeCache(settings.getNegativeMaximumSize(), settings.getNegativeTtl().toNanos())
+                : null;
     }
 
     @Override
@@ -26,15 +98,61 @@ public class CustomCache implements Cache {
         return this.store;
     }
 
+    public CacheSettings getSettings() {
+        return this.settings;
+    }
+
+    public CacheStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Most requested keys since the last {@link #resetHotKeys()}, hottest first; empty if tracking is off.
+     */
+    public List<Object> getHotKeys(int limit) {
+        return hotKeyTracker != null ? hotKeyTracker.topKeys(limit) : List.of();
+    }
+
+    public void resetHotKeys() {
+        if (hotKeyTracker != null) {
+            hotKeyTracker.reset();
+        }
+    }
+
+    public int negativeSize() {
+        return negativeCache != null ? negativeCache.size() : 0;
+    }
+
+    public boolean hasOffHeapTier() {
+        return offHeapTier != null;
+    }
+
+    public Map<String, Long> getOffHeapStatistics() {
+        if (offHeapTier == null) {
+            return Map.of();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) offHeapTier.size());
+        stats.put("capacityBytes", offHeapTier.capacityBytes());
+        stats.put("allocatedBytes", offHeapTier.allocatedBytes());
+        stats.put("usedBytes", offHeapTier.usedBytes());
+        stats.put("demotions", offHeapTier.demotionCount());
+        stats.put("promotions", offHeapTier.promotionCount());
+        return stats;
+    }
+
     @Override
     public ValueWrapper get(Object key) {
-        Object value = store.get(key);
+        Object value = lookup(key);
+        if (value == NEGATIVE_HIT) {
+            return new SimpleValueWrapper(null);
+        }
         return value != null ? new SimpleValueWrapper(value) : null;
     }
 
     @Override
     public <T> T get(Object key, Class<T> type) {
-        Object value = store.get(key);
+        Object value = lookup(key);
         if (value != null && type != null && type.isInstance(value)) {
             return type.cast(value);
         }
@@ -42,46 +160,440 @@ public class CustomCache implements Cache {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(Object key, Callable<T> valueLoader) {
-        Object value = store.get(key);
+        Object value = lookup(key);
         if (value != null) {
+            return value != NEGATIVE_HIT ? (T) value : null;
+        }
+
+        // Single flight: the first caller loads, everyone else for the same key waits on its result
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightLoad = inFlight.putIfAbsent(key, load);
+        if (inFlightLoad != null) {
             try {
-                return (T) value;
-            } catch (ClassCastException e) {
-                return null;
+                return (T) inFlightLoad.join();
+            } catch (CompletionException | CancellationException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause() != null ? e.getCause() : e);
             }
         }
-        
+
         try {
-            T loadedValue = valueLoader.call();
-            if (loadedValue != null) {
-                store.put(key, loadedValue);
+            // A load may have completed between our miss and claiming the slot
+            Object loadedValue = peek(key);
+            if (loadedValue == null) {
+                loadedValue = timedLoad(valueLoader);
+                completeLoad(key, load, loadedValue, valueLoader);
             }
-            return loadedValue;
+            load.complete(loadedValue);
+            return (T) loadedValue;
         } catch (Exception e) {
+            load.completeExceptionally(e);
             throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            // Callers parked on the load must not wait forever
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        Object value = lookup(key);
+        if (value == NEGATIVE_HIT) {
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(null));
         }
+        return value != null ? CompletableFuture.completedFuture(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value != NEGATIVE_HIT ? (T) value : null);
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightLoad = inFlight.putIfAbsent(key, load);
+        if (inFlightLoad != null) {
+            return (CompletableFuture<T>) inFlightLoad;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            valueLoader.get().whenComplete((loadedValue, error) -> {
+                if (error == null) {
+                    statistics.recordLoadSuccess(System.nanoTime() - startNanos);
+                } else {
+                    statistics.recordLoadFailure(System.nanoTime() - startNanos);
+                }
+                if (error == null) {
+                    completeLoad(key, load, loadedValue, null);
+                }
+                inFlight.remove(key, load);
+                if (error != null) {
+                    load.completeExceptionally(error);
+                } else {
+                    load.complete(loadedValue);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, load);
+            load.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) load;
     }
 
     @Override
     public void put(Object key, Object value) {
         if (value != null) {
-            store.put(key, value);
+            policyLock.lock();
+            try {
+                // Detach a running load so it cannot cache what it read, or record the key as missing,
+                // after this write
+                inFlight.remove(key);
+                write(key, new CacheEntry(value, null, System.nanoTime()));
+            } finally {
+                policyLock.unlock();
+            }
         }
     }
 
     @Override
     public void evict(Object key) {
-        store.remove(key);
+        policyLock.lock();
+        try {
+            inFlight.remove(key);
+            if (negativeCache != null) {
+                negativeCache.remove(key);
+            }
+            store.remove(key);
+            if (policy != null) {
+                policy.remove(key);
+            }
+            if (offHeapTier != null) {
+                offHeapTier.remove(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
     }
 
     @Override
     public void clear() {
-        store.clear();
+        policyLock.lock();
+        try {
+            inFlight.clear();
+            if (negativeCache != null) {
+                negativeCache.clear();
+            }
+            store.clear();
+            if (policy != null) {
+                policy.clear();
+            }
+            if (offHeapTier != null) {
+                offHeapTier.clear();
+            }
+        } finally {
+            policyLock.unlock();
+        }
     }
 
     public int size() {
         return store.size();
     }
-}
 
+    public long weightedSize() {
+        if (policy == null) {
+            return store.size();
+        }
+        policyLock.lock();
+        try {
+            return policy.weightedSize();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Drops expired entries that nobody has read since they expired.
+     */
+    public int evictExpired() {
+        int expiredNegatives = negativeCache != null ? negativeCache.evictExpired() : 0;
+        if (!settings.isExpiring()) {
+            return expiredNegatives;
+        }
+        long now = System.nanoTime();
+        int[] removed = new int[1];
+        store.forEach((key, entry) -> {
+            if (isExpired(entry, now) && removeEntry(key, entry)) {
+                removed[0]++;
+            }
+        });
+        statistics.recordEvictions(removed[0]);
+        return removed[0] + expiredNegatives;
+    }
+
+    List<CacheSnapshotStore.SnapshotEntry> snapshotEntries() {
+        long now = System.nanoTime();
+        List<CacheSnapshotStore.SnapshotEntry> entries = new ArrayList<>(store.size());
+        store.forEach((key, entry) -> {
+            if (!settings.isExpiring() || !isExpired(entry, now)) {
+                entries.add(new CacheSnapshotStore.SnapshotEntry(
+                        key, entry.value, TimeUnit.NANOSECONDS.toMillis(now - entry.writeNanos)));
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Loads an entry from a snapshot unless it has expired meanwhile or the key was already cached.
+     */
+    void restore(Object key, Object value, long ageMillis) {
+        long now = System.nanoTime();
+        CacheEntry entry = new CacheEntry(value, null, now - TimeUnit.MILLISECONDS.toNanos(ageMillis), now);
+        if ((settings.isExpiring() && isExpired(entry, now)) || store.containsKey(key)) {
+            return;
+        }
+        write(key, entry);
+    }
+
+    private Object peek(Object key) {
+        CacheEntry entry = store.get(key);
+        if (entry == null || (settings.isExpiring() && isExpired(entry, System.nanoTime()))) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    private Object lookup(Object key) {
+        CacheEntry entry = store.get(key);
+        recordAccess(key);
+        if (hotKeyTracker != null) {
+            hotKeyTracker.record(key);
+        }
+        if (entry == null && offHeapTier != null) {
+            entry = promote(key);
+        }
+        if (entry == null) {
+            if (negativeCache != null && negativeCache.contains(key)) {
+                statistics.recordHit();
+                return NEGATIVE_HIT;
+            }
+            statistics.recordMiss();
+            return null;
+        }
+        if (!settings.isExpiring()) {
+            statistics.recordHit();
+            return entry.value;
+        }
+
+        long now = System.nanoTime();
+        if (isExpired(entry, now)) {
+            if (removeEntry(key, entry)) {
+                statistics.recordEvictions(1);
+            }
+            statistics.recordMiss();
+            return null;
+        }
+        statistics.recordHit();
+        if (expireAfterAccessNanos > 0) {
+            entry.accessNanos = now;
+        }
+        if (refreshAheadNanos > 0 && entry.loader != null
+                && expiresAt(entry) - now <= refreshAheadNanos) {
+            scheduleRefresh(key, entry);
+        }
+        return entry.value;
+    }
+
+    private void write(Object key, CacheEntry entry) {
+        if (negativeCache != null) {
+            negativeCache.remove(key);
+        }
+        if (policy == null) {
+            store.put(key, entry);
+            return;
+        }
+        long weight = weigh(entry);
+        policyLock.lock();
+        try {
+            if (offHeapTier != null) {
+                offHeapTier.remove(key);
+            }
+            insert(key, entry, weight);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Caller holds the policy lock
+    private void insert(Object key, CacheEntry entry, long weight) {
+        store.put(key, entry);
+        List<Object> evicted = policy.recordWrite(key, weight);
+        for (Object evictedKey : evicted) {
+            CacheEntry evictedEntry = store.remove(evictedKey);
+            // Demote under the lock so a concurrent evict cannot be overtaken by a stale copy
+            if (offHeapTier != null && evictedEntry != null) {
+                offHeapTier.put(evictedKey, evictedEntry);
+            }
+        }
+        statistics.recordEvictions(evicted.size());
+    }
+
+    private CacheEntry promote(Object key) {
+        OffHeapTier.Location location = offHeapTier.locate(key);
+        if (location == null) {
+            return null;
+        }
+        // Copy and weigh outside the lock; the claim below tells whether the copy is still current
+        CacheEntry entry = offHeapTier.read(location);
+        if (entry == null) {
+            return null;
+        }
+        long weight = weigh(entry);
+        policyLock.lock();
+        try {
+            // A put or evict since the read removed or replaced the off-heap copy, and it must not come back
+            if (!offHeapTier.claim(key, location)) {
+                return store.get(key);
+            }
+            CacheEntry current = store.get(key);
+            if (current != null) {
+                return current;
+            }
+            if (settings.isExpiring() && isExpired(entry, System.nanoTime())) {
+                return null;
+            }
+            insert(key, entry, weight);
+            return entry;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private long weigh(CacheEntry entry) {
+        return settings.isWeighted() ? ObjectSizeEstimator.estimate(entry.value) : 1;
+    }
+
+    private void scheduleRefresh(Object key, CacheEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(key, entry));
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void refresh(Object key, CacheEntry entry) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, load) != null) {
+            // Someone is already loading this key; their result replaces the entry
+            entry.refreshing.set(false);
+            return;
+        }
+        try {
+            Object value = timedLoad(entry.loader);
+            // Only replace the entry we refreshed; a concurrent put or evict wins. They detach the
+            // refresh under the same lock, so the check and the write cannot straddle them.
+            policyLock.lock();
+            try {
+                if (inFlight.get(key) == load && store.get(key) == entry) {
+                    if (value != null) {
+                        write(key, new CacheEntry(value, entry.loader, System.nanoTime()));
+                    } else {
+                        removeEntry(key, entry);
+                    }
+                }
+            } finally {
+                policyLock.unlock();
+            }
+            load.complete(value);
+        } catch (Exception e) {
+            log.debug("Refresh-ahead of {} in cache '{}' failed", key, name, e);
+            entry.refreshing.set(false);
+            load.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    // Caches a load's result unless a put or evict detached the load meanwhile. Both detach under the
+    // policy lock, so a value read before their write can never land after it.
+    private void completeLoad(Object key, CompletableFuture<Object> load, Object value, Callable<?> loader) {
+        policyLock.lock();
+        try {
+            if (inFlight.get(key) != load) {
+                return;
+            }
+            if (value != null) {
+                write(key, new CacheEntry(value, loader, System.nanoTime()));
+            } else if (negativeCache != null) {
+                negativeCache.put(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private Object timedLoad(Callable<?> loader) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            Object value = loader.call();
+            statistics.recordLoadSuccess(System.nanoTime() - startNanos);
+            return value;
+        } catch (Exception e) {
+            statistics.recordLoadFailure(System.nanoTime() - startNanos);
+            throw e;
+        }
+    }
+
+    private boolean removeEntry(Object key, CacheEntry entry) {
+        if (policy == null) {
+            return store.remove(key, entry);
+        }
+        policyLock.lock();
+        try {
+            if (store.remove(key, entry)) {
+                policy.remove(key);
+                return true;
+            }
+            return false;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void recordAccess(Object key) {
+        if (policy != null && policyLock.tryLock()) {
+            try {
+                policy.recordAccess(key);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private boolean isExpired(CacheEntry entry, long now) {
+        return expiresAt(entry) - now <= 0;
+    }
+
+    private long expiresAt(CacheEntry entry) {
+        long expiresAt = Long.MAX_VALUE;
+        if (expireAfterWriteNanos > 0) {
+            expiresAt = entry.writeNanos + expireAfterWriteNanos;
+        }
+        if (expireAfterAccessNanos > 0) {
+            expiresAt = Math.min(expiresAt, entry.accessNanos + expireAfterAccessNanos);
+        }
+        return expiresAt;
+    }
+
+    private static long toNanos(Duration duration) {
+        return duration != null ? duration.toNanos() : 0;
+    }
+}
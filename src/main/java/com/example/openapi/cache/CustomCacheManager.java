@@ -1,19 +1,54 @@
 package com.example.openapi.cache;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
 
-public class CustomCacheManager implements CacheManager {
+@Slf4j
+public class CustomCacheManager implements CacheManager, SmartInitializingSingleton, DisposableBean {
 
     private final ConcurrentHashMap<String, Cache> cacheMap = new ConcurrentHashMap<>();
+    private final CacheProperties cacheProperties;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final CacheSnapshotStore snapshotStore = new CacheSnapshotStore(new JdkValueSerializer());
+    private final ConcurrentHashMap<String, BiPredicate<Object, Object>> restoreFilters = new ConcurrentHashMap<>();
+
+    public CustomCacheManager() {
+        this(new CacheProperties());
+    }
+
+    public CustomCacheManager(CacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        this.refreshExecutor = new ThreadPoolExecutor(
+                cacheProperties.getRefreshThreads(), cacheProperties.getRefreshThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cacheProperties.getRefreshQueueCapacity()),
+                threadFactory);
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
 
     @Override
     public Cache getCache(String name) {
-        return cacheMap.computeIfAbsent(name, CustomCache::new);
+        return cacheMap.computeIfAbsent(name,
+                n -> new CustomCache(n, cacheProperties.settingsFor(n), refreshExecutor));
     }
 
     @Override
@@ -31,5 +66,92 @@ public class CustomCacheManager implements CacheManager {
     public void clearAllCaches() {
         cacheMap.values().forEach(Cache::clear);
     }
-}
 
+    public void resetStatistics() {
+        for (Cache cache : cacheMap.values()) {
+            if (cache instanceof CustomCache customCache) {
+                customCache.getStatistics().reset();
+            }
+        }
+    }
+
+    public int evictExpiredEntries() {
+        int removed = 0;
+        for (Cache cache : cacheMap.values()) {
+            if (cache instanceof CustomCache customCache) {
+                removed += customCache.evictExpired();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Restores only the entries of {@code cacheName} that the filter accepts, say because the source of
+     * truth still holds the same value. Register it before startup finishes, when the snapshot is restored.
+     */
+    public void setRestoreFilter(String cacheName, BiPredicate<Object, Object> filter) {
+        restoreFilters.put(cacheName, filter);
+    }
+
+    public Path getSnapshotPath() {
+        return Paths.get(cacheProperties.getSnapshot().getPath());
+    }
+
+    public long writeSnapshot() throws IOException {
+        Map<String, List<CacheSnapshotStore.SnapshotEntry>> contents = new LinkedHashMap<>();
+        for (Cache cache : cacheMap.values()) {
+            if (cache instanceof CustomCache customCache && customCache.getSettings().isSnapshot()) {
+                contents.put(customCache.getName(), customCache.snapshotEntries());
+            }
+        }
+        return snapshotStore.write(getSnapshotPath(), contents);
+    }
+
+    public long restoreSnapshot() throws IOException {
+        long restored = 0;
+        for (var cache : snapshotStore.read(getSnapshotPath()).entrySet()) {
+            // A snapshot written before the cache was excluded may still hold it
+            if (!cacheProperties.settingsFor(cache.getKey()).isSnapshot()) {
+                continue;
+            }
+            CustomCache customCache = (CustomCache) getCache(cache.getKey());
+            BiPredicate<Object, Object> filter = restoreFilters.getOrDefault(cache.getKey(), (key, value) -> true);
+            for (CacheSnapshotStore.SnapshotEntry entry : cache.getValue()) {
+                if (filter.test(entry.key(), entry.value())) {
+                    customCache.restore(entry.key(), entry.value(), entry.ageMillis());
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    // After every singleton, so the services owning the cached data have registered their restore filters
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!cacheProperties.getSnapshot().isEnabled()) {
+            return;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            long restored = restoreSnapshot();
+            log.info("Restored {} cache entries from {} in {} ms", restored, getSnapshotPath(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore cache snapshot from {}, starting cold", getSnapshotPath(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+        if (cacheProperties.getSnapshot().isEnabled()) {
+            try {
+                long written = writeSnapshot();
+                log.info("Wrote {} cache entries to {}", written, getSnapshotPath());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write cache snapshot to {}", getSnapshotPath(), e);
+            }
+        }
+    }
+}
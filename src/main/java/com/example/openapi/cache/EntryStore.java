@@ -0,0 +1,129 @@
+package com.example.openapi.cache;
+
+import com.example.openapi.util.ConcurrentLongMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Key to entry map behind a {@link CustomCache}. Caches keyed by ids can keep {@code Long} keys
+ * unboxed in a {@link ConcurrentLongMap}; any other key still goes to a hash map.
+ */
+interface EntryStore {
+
+    CacheEntry get(Object key);
+
+    void put(Object key, CacheEntry entry);
+
+    CacheEntry remove(Object key);
+
+    // Removes the mapping only if it is still this exact entry
+    boolean remove(Object key, CacheEntry entry);
+
+    boolean containsKey(Object key);
+
+    int size();
+
+    void clear();
+
+    void forEach(BiConsumer<Object, CacheEntry> action);
+
+    static EntryStore create(CacheSettings settings) {
+        return settings.isLongKeys() ? new LongKeyStore() : new HashStore();
+    }
+
+    final class HashStore implements EntryStore {
+        private final ConcurrentHashMap<Object, CacheEntry> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public CacheEntry get(Object key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(Object key, CacheEntry entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        public CacheEntry remove(Object key) {
+            return entries.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, CacheEntry entry) {
+            return entries.remove(key, entry);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, CacheEntry> action) {
+            entries.forEach(action);
+        }
+    }
+
+    final class LongKeyStore implements EntryStore {
+        private final ConcurrentLongMap<CacheEntry> byId = new ConcurrentLongMap<>();
+        private final ConcurrentHashMap<Object, CacheEntry> others = new ConcurrentHashMap<>();
+
+        @Override
+        public CacheEntry get(Object key) {
+            return key instanceof Long id ? byId.get(id) : others.get(key);
+        }
+
+        @Override
+        public void put(Object key, CacheEntry entry) {
+            if (key instanceof Long id) {
+                byId.put(id, entry);
+            } else {
+                others.put(key, entry);
+            }
+        }
+
+        @Override
+        public CacheEntry remove(Object key) {
+            return key instanceof Long id ? byId.remove(id) : others.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, CacheEntry entry) {
+            return key instanceof Long id ? byId.remove(id, entry) : others.remove(key, entry);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long id ? byId.containsKey(id) : others.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return byId.size() + others.size();
+        }
+
+        @Override
+        public void clear() {
+            byId.clear();
+            others.clear();
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, CacheEntry> action) {
+            byId.forEach((entry, id) -> action.accept(id, entry));
+            others.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Space-Saving top-K tracker over a fixed number of counters, kept in a stream-summary
+ * (counters grouped in buckets of equal count) so every update is O(1).
+ * Recording is lossy: a sample is dropped when another thread holds the lock, which keeps the
+ * read path wait-free while preserving the ranking of frequently requested keys.
+ */
+public class HotKeyTracker {
+
+    private final int capacity;
+    private final Map<Object, Counter> counters;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Bucket minBucket;
+    private Bucket maxBucket;
+
+    public HotKeyTracker(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void record(Object key) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                increment(counter);
+            } else if (counters.size() < capacity) {
+                counter = new Counter(key);
+                counters.put(key, counter);
+                attachToCount(counter, 1);
+            } else {
+                // Take over the least frequent counter; its count becomes our overestimation error
+                counter = minBucket.head;
+                counters.remove(counter.key);
+                counter.key = key;
+                counters.put(key, counter);
+                increment(counter);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code k} keys, most frequently recorded first.
+     */
+    public List<Object> topKeys(int k) {
+        lock.lock();
+        try {
+            List<Object> keys = new ArrayList<>(Math.min(k, counters.size()));
+            for (Bucket bucket = maxBucket; bucket != null && keys.size() < k; bucket = bucket.prev) {
+                for (Counter counter = bucket.head; counter != null && keys.size() < k; counter = counter.next) {
+                    keys.add(counter.key);
+                }
+            }
+            return keys;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reset() {
+        lock.lock();
+        try {
+            counters.clear();
+            minBucket = null;
+            maxBucket = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void increment(Counter counter) {
+        Bucket bucket = counter.bucket;
+        long target = bucket.count + 1;
+        Bucket next = bucket.next;
+        detach(counter);
+        if (next != null && next.count == target) {
+            next.add(counter);
+        } else {
+            // counter.bucket is now the nearest lower bucket, or null if there is none
+            Bucket created = new Bucket(target);
+            insertAfter(counter.bucket, created);
+            created.add(counter);
+        }
+    }
+
+    private void attachToCount(Counter counter, long count) {
+        if (minBucket != null && minBucket.count == count) {
+            minBucket.add(counter);
+            return;
+        }
+        Bucket created = new Bucket(count);
+        insertAfter(null, created);
+        created.add(counter);
+    }
+
+    // Unlinks the counter; keeps counter.bucket pointing at its old bucket if that bucket survives
+    private void detach(Counter counter) {
+        Bucket bucket = counter.bucket;
+        bucket.remove(counter);
+        if (bucket.head == null) {
+            Bucket predecessor = bucket.prev;
+            unlinkBucket(bucket);
+            counter.bucket = predecessor;
+        }
+    }
+
+    private void insertAfter(Bucket after, Bucket bucket) {
+        if (after == null) {
+            bucket.next = minBucket;
+            if (minBucket != null) {
+                minBucket.prev = bucket;
+            }
+            minBucket = bucket;
+        } else {
+            bucket.prev = after;
+            bucket.next = after.next;
+            if (after.next != null) {
+                after.next.prev = bucket;
+            }
+            after.next = bucket;
+        }
+        if (bucket.next == null) {
+            maxBucket = bucket;
+        }
+    }
+
+    private void unlinkBucket(Bucket bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            minBucket = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        } else {
+            maxBucket = bucket.prev;
+        }
+        bucket.prev = null;
+        bucket.next = null;
+    }
+
+    private static final class Counter {
+        Object key;
+        Bucket bucket;
+        Counter prev;
+        Counter next;
+
+        Counter(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Bucket {
+        final long count;
+        Counter head;
+        Bucket prev;
+        Bucket next;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        void add(Counter counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        void remove(Counter counter) {
+            if (counter.prev != null) {
+                counter.prev.next = counter.next;
+            } else {
+                head = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+            counter.prev = null;
+            counter.next = null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.openapi.cache;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+public class JdkValueSerializer implements ValueSerializer {
+
+    /**
+     * Cached values come back from the off-heap tier and from the snapshot file on disk, so only the
+     * types this application caches may be read: its own classes, JDK value and collection types, and
+     * the Spring Security user held by the "jwtUsers" cache. Anything else is rejected.
+     */
+    static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;maxarray=16777216;maxrefs=4000000"
+                    + ";com.example.openapi.**;java.lang.*;java.util.*;java.time.*"
+                    + ";org.springframework.security.core.userdetails.*;org.springframework.security.core.authority.*"
+                    + ";!*");
+
+    @Override
+    public byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new SerializationFailedException("Cannot serialize " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(FILTER);
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SerializationFailedException("Cannot deserialize cached value", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.openapi.cache;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers keys whose load returned null, each for a short fixed TTL. Bounded by the same
+ * W-TinyLFU policy as the main store, so a scan over random ids cannot push out repeatedly probed ones.
+ */
+class NegativeCache {
+
+    private final ConcurrentHashMap<Object, Long> expiries = new ConcurrentHashMap<>();
+    private final TinyLfuPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long ttlNanos;
+
+    NegativeCache(long maximumSize, long ttlNanos) {
+        this.policy = new TinyLfuPolicy(maximumSize, maximumSize);
+        this.ttlNanos = ttlNanos;
+    }
+
+    boolean contains(Object key) {
+        Long expiresAt = expiries.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            remove(key, expiresAt);
+            return false;
+        }
+        if (lock.tryLock()) {
+            try {
+                policy.recordAccess(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    void put(Object key) {
+        lock.lock();
+        try {
+            expiries.put(key, System.nanoTime() + ttlNanos);
+            List<Object> evicted = policy.recordWrite(key, 1);
+            for (Object evictedKey : evicted) {
+                expiries.remove(evictedKey);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(Object key) {
+        // Lock-free fast path: nearly every write is for a key that was never missing
+        if (!expiries.containsKey(key)) {
+            return;
+        }
+        lock.lock();
+        try {
+            expiries.remove(key);
+            policy.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            expiries.clear();
+            policy.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (var mapping : expiries.entrySet()) {
+            if (mapping.getValue() - now <= 0 && remove(mapping.getKey(), mapping.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        return expiries.size();
+    }
+
+    private boolean remove(Object key, Long expiresAt) {
+        lock.lock();
+        try {
+            if (expiries.remove(key, expiresAt)) {
+                policy.remove(key);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.openapi.cache;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Second cache tier that keeps serialized values in direct-memory slabs, outside the GC-managed heap.
+ * Slabs are filled log-style and recycled round-robin; recycling a slab drops whatever still lives in it.
+ * Readers copy bytes without locking and validate the slab generation afterwards, like a seqlock.
+ */
+class OffHeapTier {
+
+    private final ValueSerializer serializer;
+    private final int slabSize;
+    private final ByteBuffer[] slabs;
+    private final AtomicIntegerArray generations;
+    private final List<List<Object>> slabKeys;
+    private final ConcurrentHashMap<Object, Location> index = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LongAdder demotions = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+
+    private int currentSlab = -1;
+    private int writeOffset;
+    private int allocatedSlabs;
+
+    OffHeapTier(long capacityBytes, int slabSize, ValueSerializer serializer) {
+        this.serializer = serializer;
+        this.slabSize = slabSize;
+        int slabCount = (int) Math.max(1, capacityBytes / slabSize);
+        this.slabs = new ByteBuffer[slabCount];
+        this.generations = new AtomicIntegerArray(slabCount);
+        this.slabKeys = new ArrayList<>(slabCount);
+        for (int i = 0; i < slabCount; i++) {
+            slabKeys.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Stores a serialized copy of the entry; returns false if the value is not serializable or too large.
+     */
+    boolean put(Object key, CacheEntry entry) {
+        byte[] bytes;
+        try {
+            bytes = serializer.serialize(entry.value);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (bytes.length > slabSize) {
+            return false;
+        }
+
+        writeLock.lock();
+        try {
+            if (currentSlab < 0 || writeOffset + bytes.length > slabSize) {
+                advanceSlab();
+            }
+            slabs[currentSlab].put(writeOffset, bytes);
+            Location location = new Location(currentSlab, writeOffset, bytes.length,
+                    generations.get(currentSlab), entry.writeNanos, entry.loader);
+            writeOffset += bytes.length;
+            slabKeys.get(currentSlab).add(key);
+
+            Location previous = index.put(key, location);
+            usedBytes.addAndGet(bytes.length - (previous != null ? previous.length : 0));
+            demotions.increment();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    Location locate(Object key) {
+        return index.get(key);
+    }
+
+    /**
+     * Returns a heap copy of the entry stored at {@code location}, or null if its slab was recycled meanwhile.
+     */
+    CacheEntry read(Location location) {
+        byte[] bytes = new byte[location.length];
+        slabs[location.slab].get(location.offset, bytes);
+        VarHandle.acquireFence();
+        if (generations.get(location.slab) != location.generation) {
+            return null;
+        }
+        return new CacheEntry(serializer.deserialize(bytes), location.loader, location.writeNanos, System.nanoTime());
+    }
+
+    /**
+     * Removes the key for promotion, but only while it still maps to {@code location}; false means the
+     * copy read from there is stale.
+     */
+    boolean claim(Object key, Location location) {
+        if (!index.remove(key, location)) {
+            return false;
+        }
+        usedBytes.addAndGet(-location.length);
+        promotions.increment();
+        return true;
+    }
+
+    void remove(Object key) {
+        Location previous = index.remove(key);
+        if (previous != null) {
+            usedBytes.addAndGet(-previous.length);
+        }
+    }
+
+    void clear() {
+        writeLock.lock();
+        try {
+            index.clear();
+            usedBytes.set(0);
+            for (int i = 0; i < slabs.length; i++) {
+                slabKeys.get(i).clear();
+                generations.incrementAndGet(i);
+            }
+            currentSlab = -1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long capacityBytes() {
+        return (long) slabs.length * slabSize;
+    }
+
+    long allocatedBytes() {
+        writeLock.lock();
+        try {
+            return (long) allocatedSlabs * slabSize;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    long demotionCount() {
+        return demotions.sum();
+    }
+
+    long promotionCount() {
+        return promotions.sum();
+    }
+
+    private void advanceSlab() {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        writeOffset = 0;
+        if (slabs[currentSlab] == null) {
+            slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+            allocatedSlabs++;
+            return;
+        }
+
+        int slab = currentSlab;
+        int retiredGeneration = generations.getAndIncrement(slab);
+        List<Object> keys = slabKeys.get(slab);
+        for (Object key : keys) {
+            index.computeIfPresent(key, (k, location) -> {
+                if (location.slab == slab && location.generation == retiredGeneration) {
+                    usedBytes.addAndGet(-location.length);
+                    return null;
+                }
+                return location;
+            });
+        }
+        keys.clear();
+    }
+
+    record Location(int slab, int offset, int length, int generation,
+                            long writeNanos, Callable<?> loader) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * W-TinyLFU eviction: a small LRU admission window in front of a segmented LRU main space
+ * (probation + protected). Entries leaving the window compete with the probation victim and the
+ * one with the lower estimated frequency is evicted, so one-off scans cannot flush hot entries.
+ * Not thread-safe; {@link CustomCache} guards it with a lock.
+ */
+class TinyLfuPolicy {
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.80;
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+    private final Map<Object, Node> nodes = new HashMap<>();
+    private final NodeDeque window = new NodeDeque();
+    private final NodeDeque probation = new NodeDeque();
+    private final NodeDeque protectedSegment = new NodeDeque();
+
+    private long windowWeight;
+    private long protectedWeight;
+    private long totalWeight;
+
+    TinyLfuPolicy(long maximum, long expectedEntries) {
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, (long) (maximum * WINDOW_RATIO));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    void recordAccess(Object key) {
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node != null) {
+            onHit(node);
+        }
+    }
+
+    /**
+     * Records an insert or update and returns the keys that must be evicted to stay within bounds.
+     */
+    List<Object> recordWrite(Object key, long weight) {
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node != null) {
+            adjustWeight(node, weight - node.weight);
+            onHit(node);
+        } else {
+            node = new Node(key, weight);
+            nodes.put(key, node);
+            window.addLast(node);
+            windowWeight += weight;
+            totalWeight += weight;
+        }
+        return evictEntries();
+    }
+
+    void remove(Object key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return;
+        }
+        dequeOf(node).unlink(node);
+        adjustWeight(node, -node.weight);
+    }
+
+    void clear() {
+        nodes.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = 0;
+        protectedWeight = 0;
+        totalWeight = 0;
+    }
+
+    long weightedSize() {
+        return totalWeight;
+    }
+
+    private void onHit(Node node) {
+        switch (node.segment) {
+            case WINDOW -> window.moveToEnd(node);
+            case PROTECTED -> protectedSegment.moveToEnd(node);
+            case PROBATION -> {
+                probation.unlink(node);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.addLast(node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum && protectedSegment.first() != node) {
+                    Node demoted = protectedSegment.pollFirst();
+                    protectedWeight -= demoted.weight;
+                    demoted.segment = Segment.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+        }
+    }
+
+    private List<Object> evictEntries() {
+        // Window overflow moves entries to the probation tail, where they become admission candidates
+        Node candidate = null;
+        while (windowWeight > windowMaximum && window.first() != null) {
+            Node node = window.pollFirst();
+            windowWeight -= node.weight;
+            node.segment = Segment.PROBATION;
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        List<Object> evicted = Collections.emptyList();
+        while (totalWeight > maximum) {
+            Node victim = firstNonNull(probation.first(), protectedSegment.first(), window.first());
+            if (victim == null) {
+                break;
+            }
+            Node evict = victim;
+            if (candidate != null && candidate != victim
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                evict = candidate;
+            }
+            if (evict == candidate) {
+                candidate = probation.next(candidate);
+            }
+            if (evicted.isEmpty()) {
+                evicted = new ArrayList<>(2);
+            }
+            evicted.add(evict.key);
+            remove(evict.key);
+        }
+        return evicted;
+    }
+
+    private void adjustWeight(Node node, long delta) {
+        node.weight += delta;
+        totalWeight += delta;
+        if (node.segment == Segment.WINDOW) {
+            windowWeight += delta;
+        } else if (node.segment == Segment.PROTECTED) {
+            protectedWeight += delta;
+        }
+    }
+
+    private NodeDeque dequeOf(Node node) {
+        return switch (node.segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private static Node firstNonNull(Node a, Node b, Node c) {
+        return a != null ? a : (b != null ? b : c);
+    }
+
+    private static final class Node {
+        final Object key;
+        long weight;
+        Segment segment = Segment.WINDOW;
+        Node prev;
+        Node next;
+
+        Node(Object key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    private static final class NodeDeque {
+        private final Node head = new Node(null, 0);
+
+        NodeDeque() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node first() {
+            return head.next == head ? null : head.next;
+        }
+
+        Node next(Node node) {
+            return node.next == head ? null : node.next;
+        }
+
+        Node pollFirst() {
+            Node node = first();
+            if (node != null) {
+                unlink(node);
+            }
+            return node;
+        }
+
+        void addLast(Node node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+        }
+
+        void moveToEnd(Node node) {
+            if (head.prev != node) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+
+        void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.openapi.cache;
+
+public interface ValueSerializer {
+
+    byte[] serialize(Object value);
+
+    Object deserialize(byte[] bytes);
+}
@@ -0,0 +1,19 @@
+package com.example.openapi.config;
+
+import com.example.openapi.journal.BookJournal;
+import com.example.openapi.journal.FileBookJournal;
+import com.example.openapi.journal.JournalProperties;
+import com.example.openapi.journal.NoOpBookJournal;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class BookJournalConfig {
+
+    @Bean
+    public BookJournal bookJournal(JournalProperties journalProperties) {
+        return journalProperties.isEnabled() ? new FileBookJournal(journalProperties) : new NoOpBookJournal();
+    }
+}
@@ -1,7 +1,8 @@
 package com.example.openapi.config;
 
+import com.example.openapi.cache.CacheProperties;
 import com.example.openapi.cache.CustomCacheManager;
-import org.springframework.cache.CacheManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,12 +10,12 @@ import org.springframework.context.annotation.Primary;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
     @Bean
     @Primary
-    public CustomCacheManager cacheManager() {
-        return new CustomCacheManager();
+    public CustomCacheManager cacheManager(CacheProperties cacheProperties) {
+        return new CustomCacheManager(cacheProperties);
     }
 }
-
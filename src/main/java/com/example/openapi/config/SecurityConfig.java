@@ -1,7 +1,9 @@
 package com.example.openapi.config;
 
 import com.example.openapi.security.JwtAuthenticationFilter;
-import com.example.openapi.security.JwtUtil;
+import com.example.openapi.security.JwtUserResolver;
+import com.example.openapi.security.TokenRevocationList;
+import com.example.openapi.security.VerifiedTokenCache;
 
 import com.example.openapi.service.impl.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
@@ -25,11 +27,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final UserDetailsServiceImpl userDetailsService;
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokens;
+    private final JwtUserResolver userResolver;
+    private final TokenRevocationList revokedTokens;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(verifiedTokens, userResolver, revokedTokens);
 
         http
                 .csrf(csrf -> csrf.disable())
@@ -44,9 +48,10 @@ public class SecurityConfig {
 
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/cache/**").hasRole("ADMIN")
+                        .requestMatchers("/api/auth/**").hasRole("ADMIN")
                         .requestMatchers("/api/jobs/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/books", "/api/books/**").hasAnyRole("USER", "ADMIN")
-                        .requestMatchers(HttpMethod.POST, "/api/books").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/books", "/api/books/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/books/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/books/**").hasRole("ADMIN")
 
@@ -5,8 +5,17 @@ import com.example.openapi.dto.RegisterRequest;
 import com.example.openapi.entity.Role;
 import com.example.openapi.entity.User;
 import com.example.openapi.repository.UserRepository;
+import com.example.openapi.security.JwtPrincipal;
 import com.example.openapi.security.JwtUtil;
+import com.example.openapi.security.PasswordHashingExecutor;
+import com.example.openapi.security.TokenDigest;
+import com.example.openapi.security.TokenRevocationList;
+import com.example.openapi.security.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -15,13 +24,18 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,45 +45,89 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final VerifiedTokenCache verifiedTokens;
+    private final TokenRevocationList revokedTokens;
+    private final PasswordHashingExecutor passwordHashing;
+    // Database work after a hash, so it never holds one of the few hashing threads
+    private final Executor applicationExecutor;
 
-    public AuthController(AuthenticationManager authManager, JwtUtil jwtUtil, UserRepository userRepo, PasswordEncoder passwordEncoder) {
+    public AuthController(AuthenticationManager authManager, JwtUtil jwtUtil, UserRepository userRepo, PasswordEncoder passwordEncoder,
+                          VerifiedTokenCache verifiedTokens, TokenRevocationList revokedTokens,
+                          PasswordHashingExecutor passwordHashing,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor applicationExecutor) {
         this.authManager = authManager;
         this.jwtUtil = jwtUtil;
         this.userRepo = userRepo;
         this.passwordEncoder = passwordEncoder;
+        this.verifiedTokens = verifiedTokens;
+        this.revokedTokens = revokedTokens;
+        this.passwordHashing = passwordHashing;
+        this.applicationExecutor = applicationExecutor;
     }
 
+    // Password checks run on the hashing pool and the request is answered asynchronously, so the
+    // servlet thread is free meanwhile; a full pool answers 503 (see GlobalExceptionHandler)
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest request) {
-        try {
-            Authentication auth = authManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-            UserDetails userDetails = (UserDetails) auth.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
-            Map<String, Object> resp = new HashMap<>();
-            resp.put("token", token);
-            resp.put("username", userDetails.getUsername());
-            resp.put("roles", userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
-            return ResponseEntity.ok(resp);
-        } catch (AuthenticationException ex) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody AuthRequest request) {
+        return passwordHashing.submit(() -> authManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())))
+                .handle(this::loginResponse);
+    }
+
+    private ResponseEntity<?> loginResponse(Authentication auth, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof AuthenticationException) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
         }
+        UserDetails userDetails = (UserDetails) auth.getPrincipal();
+        String token = jwtUtil.generateToken(userDetails);
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("token", token);
+        resp.put("username", userDetails.getUsername());
+        resp.put("roles", userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+        return ResponseEntity.ok(resp);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest req) {
         if (userRepo.findByUsername(req.getUsername()).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body("Username exists");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).body("Username exists"));
         }
-        User u = new User();
-        u.setUsername(req.getUsername());
-        u.setPassword(passwordEncoder.encode(req.getPassword()));
+        return passwordHashing.submit(() -> passwordEncoder.encode(req.getPassword())).thenApplyAsync(passwordHash -> {
+            User u = new User();
+            u.setUsername(req.getUsername());
+            u.setPassword(passwordHash);
 
-        Role userRole = new Role();
-        userRole.setName("ROLE_USER");
+            Role userRole = new Role();
+            userRole.setName("ROLE_USER");
 
-        u.getRoles().add(userRole);
-        userRepo.save(u);
-        return ResponseEntity.ok("created");
+            u.getRoles().add(userRole);
+            userRepo.save(u);
+            return ResponseEntity.ok("created");
+        }, applicationExecutor);
+    }
+
+    /**
+     * Revokes the presented token (Authorization header or AUTH cookie) for the rest of its lifetime
+     * and clears the cookie. Answers 204 whether or not there was a valid token to revoke.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @CookieValue(value = "AUTH", required = false) String cookieToken) {
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : cookieToken;
+        if (token != null) {
+            TokenDigest digest = TokenDigest.of(token);
+            JwtPrincipal principal = verifiedTokens.verify(token, digest);
+            if (principal != null && principal.expiresAt() != null) {
+                revokedTokens.revoke(digest, principal.expiresAt());
+            }
+        }
+        ResponseCookie cleared = ResponseCookie.from("AUTH", "").path("/").maxAge(0).build();
+        return ResponseEntity.noContent().header(HttpHeaders.SET_COOKIE, cleared.toString()).build();
     }
 }
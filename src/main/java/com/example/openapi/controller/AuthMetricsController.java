@@ -0,0 +1,29 @@
+package com.example.openapi.controller;
+
+import com.example.openapi.security.PasswordHashingExecutor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AuthMetricsController {
+
+    private final PasswordHashingExecutor passwordHashing;
+
+    @Operation(summary = "Password hashing pool metrics",
+            description = "Queue depth, completed and rejected tasks, and wait and hash latency of the pool that runs login and registration password hashing.")
+    @ApiResponse(responseCode = "200", description = "Current metrics", content = @Content)
+    @GetMapping("/hashing")
+    public ResponseEntity<Map<String, Object>> getHashingMetrics() {
+        return ResponseEntity.ok(passwordHashing.metrics());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.openapi.controller;
+
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.service.BookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RestController
+@RequestMapping("/api/books/changes")
+@RequiredArgsConstructor
+@Slf4j
+public class BookChangeController {
+
+    private final BookService bookService;
+
+    @Value("${books.changes.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${books.changes.poll-timeout-ms:30000}")
+    private long pollTimeoutMillis;
+
+    @Value("${books.changes.sse.max-subscribers:64}")
+    private int maxSubscribers;
+
+    @Value("${books.changes.sse.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${books.changes.sse.timeout-ms:1800000}")
+    private long streamTimeoutMillis;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private ExecutorService streamExecutor;
+
+    /**
+     * One thread per allowed subscriber: sends block, so a pool smaller than max-subscribers would let
+     * a few stalled clients hold every thread and starve the rest. Idle threads time out.
+     */
+    @PostConstruct
+    void startExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("book-changes-sse-"));
+        executor.allowCoreThreadTimeOut(true);
+        streamExecutor = executor;
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        streamExecutor.shutdownNow();
+    }
+
+    @Operation(summary = "Poll book changes", description = "Returns the changes after position since, oldest first. Waits up to the poll timeout when there are none yet (long-poll). If since is no longer retained, reset is true: reload the catalogue and continue from next.")
+    @ApiResponse(responseCode = "200", description = "Changes after since; empty if the wait timed out",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BookChangeBatch.class)))
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<BookChangeBatch> pollChanges(@RequestParam long since,
+                                                       @RequestParam(required = false) Integer limit) {
+        int batchSize = limit != null ? Math.max(1, Math.min(limit, maxBatch)) : maxBatch;
+        DeferredResult<BookChangeBatch> result = new DeferredResult<>(pollTimeoutMillis,
+                () -> new BookChangeBatch(List.of(), since, false));
+        poll(result, since, batchSize);
+        return result;
+    }
+
+    @Operation(summary = "Stream book changes", description = "Server-Sent Events: one event per change, named after the operation, with the change position as event id. Starts after since, Last-Event-ID or the current position. A subscriber too slow to keep up within the retained changes gets a reset event and should reload the catalogue.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = BookChange.class))),
+            @ApiResponse(responseCode = "503", description = "Too many subscribers", content = @Content)
+    })
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change stream subscribers");
+        }
+        long start = lastEventId != null ? lastEventId : since != null ? since : bookService.getLatestChangeSequence();
+        Subscription subscription = new Subscription(new SseEmitter(streamTimeoutMillis), start);
+        subscription.emitter.onCompletion(subscription::close);
+        subscription.emitter.onTimeout(subscription::close);
+        subscription.emitter.onError(error -> subscription.close());
+        subscription.schedule();
+        return subscription.emitter;
+    }
+
+    private void poll(DeferredResult<BookChangeBatch> result, long since, int batchSize) {
+        BookChangeBatch batch = bookService.findChangesSince(since, batchSize);
+        if (!batch.getChanges().isEmpty() || batch.isReset()) {
+            result.setResult(batch);
+            return;
+        }
+        // Wakeups may be spurious, so look again and wait again until something arrives or we time out
+        var signal = bookService.awaitChangesAfter(since);
+        result.onCompletion(() -> signal.complete(null));
+        signal.thenRun(() -> {
+            if (!result.isSetOrExpired()) {
+                poll(result, since, batchSize);
+            }
+        });
+    }
+
+    /**
+     * One SSE subscriber. Each pump run sends one batch of what the change log holds after its position,
+     * then either schedules the next run or waits for the next append; nothing is queued per subscriber.
+     * A client whose batch takes longer than the send timeout is dropped and has to reconnect with its
+     * Last-Event-ID; one that only falls behind the ring buffer gets a reset.
+     */
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long position;
+        private volatile CompletableFuture<Void> signal;
+
+        Subscription(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        void schedule() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                streamExecutor.execute(this::pump);
+            } catch (RejectedExecutionException e) {
+                log.debug("Change stream executor is shut down", e);
+                emitter.complete();
+                close();
+            }
+        }
+
+        void pump() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                long started = System.nanoTime();
+                BookChangeBatch batch = bookService.findChangesSince(position, maxBatch);
+                if (batch.isReset()) {
+                    emitter.send(SseEmitter.event().name("reset").id(Long.toString(batch.getNext()))
+                            .data(batch.getNext()));
+                }
+                for (BookChange change : batch.getChanges()) {
+                    emitter.send(SseEmitter.event().name(change.getOperation().name())
+                            .id(Long.toString(change.getSequence())).data(change, MediaType.APPLICATION_JSON));
+                }
+                position = batch.getNext();
+                if (System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis)) {
+                    log.debug("Dropping change stream subscriber that took over {} ms for one batch", sendTimeoutMillis);
+                    emitter.complete();
+                    close();
+                } else if (!batch.getChanges().isEmpty() || batch.isReset()) {
+                    // Requeue rather than loop, so a subscriber with a long backlog takes turns with the others
+                    schedule();
+                } else {
+                    // Give the thread back while idle; the next append schedules the pump again
+                    signal = bookService.awaitChangesAfter(position);
+                    signal.thenRun(this::schedule);
+                    if (closed.get()) {
+                        signal.complete(null);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Change stream subscriber went away", e);
+                emitter.completeWithError(e);
+                close();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.decrementAndGet();
+                CompletableFuture<Void> waiting = signal;
+                if (waiting != null) {
+                    waiting.complete(null);
+                }
+            }
+        }
+    }
+}
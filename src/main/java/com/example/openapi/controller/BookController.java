@@ -3,52 +3,195 @@ package com.example.openapi.controller;
 import com.example.openapi.aspect.AuditLog;
 import com.example.openapi.aspect.HandleException;
 import com.example.openapi.aspect.RateLimit;
+import com.example.openapi.dto.BookPage;
+import com.example.openapi.dto.BulkResult;
 import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookJsonCache;
 import com.example.openapi.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
 @RestController
 @RequestMapping("/api/books")
 @RequiredArgsConstructor
 public class BookController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    // Flush the NDJSON stream every this many books so clients see data before the end
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+
     private final BookService bookService;
+    private final BookJsonCache bookJsonCache;
+    private final ObjectMapper objectMapper;
+    // Without a flush per book, so the stream is flushed every STREAM_FLUSH_INTERVAL books only
+    private ObjectWriter ndjsonWriter;
+    // Versions restart with the process when the catalogue is not journaled, so tags also carry the start time
+    private final String etagEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${books.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${books.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${books.search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${books.bulk.max-items:10000}")
+    private int maxBulkItems;
+
+    @PostConstruct
+    void createNdjsonWriter() {
+        ndjsonWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Operation(summary = "Get a list of all books", description = "Returns a list of all books in the store. Tagged with the catalogue version; send it back in If-None-Match to get 304 while nothing changed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "304", description = "Catalogue unchanged since the given ETag",
+                    content = @Content)
+    })
+    @GetMapping
+    @RateLimit(maxCalls = 20, windowMinutes = 1)
+    public void getAllBooks(WebRequest request, HttpServletResponse response) throws IOException {
+        // Version first: the list may then be newer than its tag, never older
+        long version = bookService.getCatalogVersion();
+        String etag = etag("c" + version);
+        if (request.checkNotModified(etag)) {
+            return;
+        }
+        writeJson(bookJsonCache.encodedBooks(version), etag, request, response);
+    }
 
-    @Operation(summary = "Get a list of all books", description = "Returns a list of all books in the store.")
+    @Operation(summary = "Stream all books as NDJSON", description = "Writes one JSON book per line while iterating the store, without building the whole list in memory.")
+    @ApiResponse(responseCode = "200", description = "Stream of books",
+            content = @Content(mediaType = NDJSON,
+                    schema = @Schema(implementation = Book.class)))
+    @GetMapping(produces = NDJSON)
+    @RateLimit(maxCalls = 20, windowMinutes = 1)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // Lines are separated by the newlines below, not by the default space between root values
+                generator.setRootValueSeparator(null);
+                int written = 0;
+                for (Book book : bookService.iterateBooks()) {
+                    ndjsonWriter.writeValue(generator, book);
+                    generator.writeRaw('\n');
+                    if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @Operation(summary = "Get a page of books", description = "Keyset pagination in ID order: pass the nextCursor of one page as the cursor of the next.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BookPage.class)))
+    @GetMapping("/page")
+    @RateLimit(maxCalls = 60, windowMinutes = 1)
+    public BookPage getBookPage(@RequestParam(required = false) Long cursor,
+                                @RequestParam(required = false) Integer limit) {
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        // Fetch one extra book to learn whether another page follows
+        List<Book> items = bookService.findBooksAfter(cursor, pageSize + 1);
+        Long nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = items.get(pageSize - 1).getId();
+        }
+        return new BookPage(items, nextCursor);
+    }
+
+    @Operation(summary = "Search books", description = "Full-text search over titles and authors, ranked by relevance. Every word must match; the last one also matches as a prefix.")
+    @ApiResponse(responseCode = "200", description = "Matching books, best match first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = Book.class)))
+    @GetMapping("/search")
+    @RateLimit(maxCalls = 60, windowMinutes = 1)
+    public List<Book> searchBooks(@RequestParam String q,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        return bookService.searchBooks(q, Math.max(1, Math.min(limit, maxSearchResults)));
+    }
+
+    @Operation(summary = "Find books by author", description = "Returns the books of the given author, ordered by ID.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
             content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = Book.class)))
-    @GetMapping
+    @GetMapping(params = "author")
     @RateLimit(maxCalls = 20, windowMinutes = 1)
-    public List<Book> getAllBooks() {
-        return bookService.getAllBooks();
+    public List<Book> getBooksByAuthor(@RequestParam String author) {
+        return bookService.findBooksByAuthor(author);
     }
 
+    @Operation(summary = "Find books by title prefix", description = "Returns the books whose title starts with the given prefix, ignoring case, ordered by title.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = Book.class)))
+    @GetMapping(params = "titlePrefix")
+    @RateLimit(maxCalls = 20, windowMinutes = 1)
+    public List<Book> getBooksByTitlePrefix(@RequestParam String titlePrefix) {
+        return bookService.findBooksByTitlePrefix(titlePrefix);
+    }
 
     @Operation(summary = "Get a book by its ID", description = "Fetches a book based on its unique ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the book",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = Book.class)) }),
+            @ApiResponse(responseCode = "304", description = "Book unchanged since the given ETag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Book not found",
                     content = @Content)
     })
     @GetMapping("/{id}")
     @RateLimit(maxCalls = 10, windowMinutes = 1)
     @HandleException
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public void getBookById(@PathVariable Long id, WebRequest request, HttpServletResponse response) throws IOException {
         Book book = bookService.findBookById(id);
-        return book != null ? ResponseEntity.ok(book) : ResponseEntity.notFound().build();
+        if (book == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String etag = etag("b" + book.getVersion());
+        if (request.checkNotModified(etag)) {
+            return;
+        }
+        writeJson(bookJsonCache.encodedBook(book), etag, request, response);
     }
 
     @Operation(summary = "Create a new book", description = "Adds a new book to the store.")
@@ -67,20 +210,27 @@ public class BookController {
         return bookService.createBook(book);
     }
 
-    @Operation(summary = "Update an existing book", description = "Updates the details of an existing book by its ID.")
+    @Operation(summary = "Update an existing book", description = "Updates the details of an existing book by its ID. With If-Match, the update only applies while the book still has that ETag.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book updated successfully",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = Book.class)) }),
             @ApiResponse(responseCode = "404", description = "Book not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Book changed since the If-Match ETag",
                     content = @Content)
     })
     @PutMapping("/{id}")
     @AuditLog // Логуємо оновлення книг
     @HandleException
-    public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book book) {
-        Book updatedBook = bookService.updateBook(id, book);
-        return updatedBook != null ? ResponseEntity.ok(updatedBook) : ResponseEntity.notFound().build();
+    public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book book,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book updatedBook = ifMatch == null
+                ? bookService.updateBook(id, book)
+                : bookService.updateBook(id, book, matchesAny(ifMatch));
+        return updatedBook != null
+                ? ResponseEntity.ok().eTag(etag("b" + updatedBook.getVersion())).body(updatedBook)
+                : ResponseEntity.notFound().build();
     }
 
     @Operation(summary = "Delete a book", description = "Deletes a book from the store by its ID.")
@@ -97,4 +247,120 @@ public class BookController {
     public void deleteBook(@PathVariable Long id) {
         bookService.deleteBook(id);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Create books in bulk", description = "Takes a JSON array or NDJSON stream of books and creates them as one batch. Returns a result per item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied; see the per-item results",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkResult.class)) }),
+            @ApiResponse(responseCode = "400", description = "Malformed body", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Too many items", content = @Content)
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @AuditLog(summarize = true)
+    @HandleException
+    public BulkResult createBooks(InputStream body) throws IOException {
+        return bookService.createBooks(readBulk(body, Book.class));
+    }
+
+    @Operation(summary = "Update books in bulk", description = "Takes a JSON array or NDJSON stream of books with their IDs and replaces them as one batch. Returns a result per item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied; see the per-item results",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkResult.class)) }),
+            @ApiResponse(responseCode = "400", description = "Malformed body", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Too many items", content = @Content)
+    })
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @AuditLog(summarize = true)
+    @HandleException
+    public BulkResult updateBooks(InputStream body) throws IOException {
+        return bookService.updateBooks(readBulk(body, Book.class));
+    }
+
+    @Operation(summary = "Delete books in bulk", description = "Takes a JSON array or NDJSON stream of book IDs and deletes them as one batch. Returns a result per item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied; see the per-item results",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkResult.class)) }),
+            @ApiResponse(responseCode = "400", description = "Malformed body", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Too many items", content = @Content)
+    })
+    @DeleteMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @AuditLog(summarize = true)
+    @HandleException
+    public BulkResult deleteBooks(InputStream body) throws IOException {
+        return bookService.deleteBooks(readBulk(body, Long.class));
+    }
+
+    // Cached bytes go straight to the output stream, gzipped if the client accepts it
+    private void writeJson(BookJsonCache.EncodedJson encoded, String etag, WebRequest request,
+                           HttpServletResponse response) throws IOException {
+        byte[] body = encoded.json();
+        if (encoded.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            body = encoded.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // If-Match uses strong comparison, so weak tags and tags from another start never match
+    private LongPredicate matchesAny(String ifMatch) {
+        Set<Long> versions = new HashSet<>();
+        String prefix = "\"" + etagEpoch + "-b";
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return version -> true;
+            }
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(prefix.length(), tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // not one of our tags
+                }
+            }
+        }
+        return versions::contains;
+    }
+
+    // Strong tag built from versions only, so the body is never serialized just to compare it
+    private String etag(String version) {
+        return "\"" + etagEpoch + "-" + version + "\"";
+    }
+
+    // A JSON array and NDJSON (one value per line) both read as a sequence of values
+    private <T> List<T> readBulk(InputStream body, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        try (MappingIterator<T> values = objectMapper.readerFor(type).readValues(body)) {
+            while (values.hasNextValue()) {
+                if (items.size() == maxBulkItems) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "At most " + maxBulkItems + " items per bulk request");
+                }
+                items.add(values.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed bulk body: " + e.getOriginalMessage());
+        }
+        return items;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.openapi.controller;
 
+import com.example.openapi.cache.CacheStatistics;
+import com.example.openapi.cache.CustomCache;
 import com.example.openapi.cache.CustomCacheManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -77,7 +80,8 @@ public class CacheController {
         }
     }
 
-    @Operation(summary = "Get cache statistics", description = "Returns statistics about all caches in the system.")
+    @Operation(summary = "Get cache statistics",
+            description = "Returns size, hit/miss counts, hit ratio, load latency, evictions and off-heap memory use for every cache.")
     @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully",
             content = @Content)
     @GetMapping("/stats")
@@ -87,10 +91,12 @@ public class CacheController {
             Collection<String> cacheNames = cacheManager.getCacheNames();
             
             Map<String, Integer> cacheSizes = new HashMap<>();
+            Map<String, Object> cacheDetails = new HashMap<>();
             for (String cacheName : cacheNames) {
                 var cache = cacheManager.getCache(cacheName);
-                if (cache instanceof com.example.openapi.cache.CustomCache) {
-                    cacheSizes.put(cacheName, ((com.example.openapi.cache.CustomCache) cache).size());
+                if (cache instanceof CustomCache customCache) {
+                    cacheSizes.put(cacheName, customCache.size());
+                    cacheDetails.put(cacheName, describe(customCache));
                 } else {
                     cacheSizes.put(cacheName, 0);
                 }
@@ -99,6 +105,7 @@ public class CacheController {
             stats.put("totalCaches", cacheNames.size());
             stats.put("cacheNames", cacheNames);
             stats.put("cacheSizes", cacheSizes);
+            stats.put("caches", cacheDetails);
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -107,5 +114,68 @@ public class CacheController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
-}
 
+    @Operation(summary = "Reset cache statistics", description = "Resets hit/miss/load/eviction counters of all caches.")
+    @ApiResponse(responseCode = "200", description = "Cache statistics reset successfully",
+            content = @Content)
+    @PostMapping("/stats/reset")
+    public ResponseEntity<Map<String, String>> resetCacheStats() {
+        cacheManager.resetStatistics();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Cache statistics reset successfully");
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Snapshot caches to disk",
+            description = "Writes the current contents of all caches to the snapshot file used for warm restarts.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot written successfully",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Error writing snapshot",
+                    content = @Content)
+    })
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> snapshotCaches() {
+        try {
+            long startNanos = System.nanoTime();
+            long entries = cacheManager.writeSnapshot();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Cache snapshot written successfully");
+            response.put("status", "success");
+            response.put("entries", entries);
+            response.put("path", cacheManager.getSnapshotPath().toString());
+            response.put("durationMs", (System.nanoTime() - startNanos) / 1_000_000);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error writing cache snapshot: " + e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private Map<String, Object> describe(CustomCache cache) {
+        CacheStatistics.Snapshot snapshot = cache.getStatistics().snapshot();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("size", cache.size());
+        details.put("weightedSize", cache.weightedSize());
+        details.put("maximumSize", cache.getSettings().getMaximumSize());
+        details.put("maximumWeight", cache.getSettings().getMaximumWeight());
+        details.put("hits", snapshot.hitCount());
+        details.put("misses", snapshot.missCount());
+        details.put("hitRatio", snapshot.hitRatio());
+        details.put("loads", snapshot.loadSuccessCount());
+        details.put("loadFailures", snapshot.loadFailureCount());
+        details.put("totalLoadTimeMs", snapshot.totalLoadNanos() / 1_000_000.0);
+        details.put("averageLoadTimeMs", snapshot.averageLoadPenaltyMillis());
+        details.put("evictions", snapshot.evictionCount());
+        if (cache.getSettings().isNegativeCaching()) {
+            details.put("negativeEntries", cache.negativeSize());
+        }
+        if (cache.hasOffHeapTier()) {
+            details.put("offHeap", cache.getOffHeapStatistics());
+        }
+        return details;
+    }
+}
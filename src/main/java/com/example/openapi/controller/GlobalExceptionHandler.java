@@ -1,6 +1,9 @@
 package com.example.openapi.controller;
 
 import com.example.openapi.aspect.RateLimitExceededException;
+import com.example.openapi.security.PasswordHashingBusyException;
+import com.example.openapi.service.BookVersionConflictException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,5 +26,30 @@ public class GlobalExceptionHandler {
                 .status(HttpStatus.TOO_MANY_REQUESTS)
                 .body(body);
     }
-}
 
+    @ExceptionHandler(BookVersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(BookVersionConflictException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+        body.put("currentVersion", ex.getCurrentVersion());
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(body);
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Map<String, Object>> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+}
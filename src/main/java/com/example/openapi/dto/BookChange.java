@@ -0,0 +1,22 @@
+package com.example.openapi.dto;
+
+import com.example.openapi.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChange {
+
+    public enum Operation {
+        PUT, DELETE
+    }
+
+    private long sequence;
+    private Operation operation;
+    private long bookId;
+    // State after the change; null for deletes
+    private Book book;
+}
@@ -0,0 +1,18 @@
+package com.example.openapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangeBatch {
+    private List<BookChange> changes;
+    // Pass as "since" to continue after this batch
+    private long next;
+    // The requested position is no longer retained: reload the catalogue, then follow from next
+    private boolean reset;
+}
@@ -0,0 +1,17 @@
+package com.example.openapi.dto;
+
+import com.example.openapi.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPage {
+    private List<Book> items;
+    // Id of the last item; pass it as the cursor to get the next page, null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.example.openapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, INVALID
+    }
+
+    // Position of the item in the request
+    private int index;
+    private Long id;
+    private Status status;
+    // Why the item was not applied; null on success
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.example.openapi.dto;
+
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// toString leaves out the items so a bulk call is audited as one short summary
+@Data
+@ToString(exclude = "items")
+public class BulkResult {
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> items = new ArrayList<>();
+
+    public void add(int index, Long id, BulkItemResult.Status status, String message) {
+        items.add(new BulkItemResult(index, id, status, message));
+        if (message == null) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+    }
+}
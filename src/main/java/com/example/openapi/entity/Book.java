@@ -1,14 +1,24 @@
 package com.example.openapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Book {
+public class Book implements Serializable {
     private Long id;
     private String title;
     private String author;
-}
\ No newline at end of file
+    // Bumped by the store on every write; clients cannot set it
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    public Book(Long id, String title, String author) {
+        this(id, title, author, 0);
+    }
+}
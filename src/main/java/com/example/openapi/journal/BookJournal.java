@@ -0,0 +1,68 @@
+package com.example.openapi.journal;
+
+import com.example.openapi.entity.Book;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Durable record of catalogue writes. Appends are idempotent full-state records per book id,
+ * so replaying them in order over a snapshot rebuilds the catalogue.
+ */
+public interface BookJournal {
+
+    record RecoveredCatalog(Map<Long, Book> books, long sequence, boolean empty) {
+    }
+
+    /**
+     * Rebuilds the catalogue from the latest snapshot plus the log written after it.
+     * {@code empty} is true when nothing was ever journaled.
+     */
+    RecoveredCatalog recover() throws IOException;
+
+    /**
+     * Logs the current state of a book; returns once the record is on disk.
+     */
+    void appendPut(Book book);
+
+    /**
+     * Logs a deletion; returns once the record is on disk.
+     */
+    void appendDelete(long id);
+
+    /**
+     * Queues a put without waiting; the future completes once the record is on disk.
+     */
+    CompletableFuture<Void> submitPut(Book book);
+
+    CompletableFuture<Void> submitDelete(long id);
+
+    /**
+     * Waits for submitted records, so a batch of them shares as few disk forces as possible.
+     */
+    static void awaitAll(List<CompletableFuture<Void>> submitted) {
+        try {
+            CompletableFuture.allOf(submitted.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException("Could not write to the book journal", io);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sequence number of the last record handed to the log so far.
+     */
+    long lastSequenceNumber();
+
+    /**
+     * Writes a compacted snapshot and drops log segments it makes redundant. {@code books} must reflect
+     * at least every record up to {@code throughSequenceNumber}; later changes may or may not be included.
+     */
+    void writeSnapshot(Iterable<Book> books, long bookIdSequence, long throughSequenceNumber) throws IOException;
+}
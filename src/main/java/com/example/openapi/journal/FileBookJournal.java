@@ -0,0 +1,526 @@
+package com.example.openapi.journal;
+
+import com.example.openapi.entity.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of book changes plus compacted snapshots, in one directory:
+ * <pre>
+ * books.snapshot        magic:int version:int lsn:long bookIdSequence:long count:int book*
+ * books-NNNNNNNNNN.wal  (length:int crc32:int payload)*   payload = lsn:long type:byte id:long [book]
+ * book                  id:long title:string author:string version:long
+ * string                length:int (-1 for null) utf8
+ * </pre>
+ * Appends are encoded on the caller's thread and written by a single writer thread that drains
+ * everything queued, writes it and calls {@link FileChannel#force} once for the whole batch (group
+ * commit). Recovery loads the snapshot and replays the records logged after it; a torn record at the
+ * end of the last segment, left by a crash mid-write, is cut off. A bad record anywhere else would leave
+ * a gap in the middle of the history, so recovery fails instead.
+ */
+@Slf4j
+public class FileBookJournal implements BookJournal, DisposableBean {
+
+    private static final int SNAPSHOT_MAGIC = 0x424b534e;
+    private static final int FORMAT_VERSION = 2;
+    // Snapshots and puts of format 1 have no book version; those books recover at version 0
+    private static final int UNVERSIONED_FORMAT = 1;
+    private static final byte TYPE_UNVERSIONED_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_PUT = 3;
+    private static final String SNAPSHOT_FILE = "books.snapshot";
+    private static final String SEGMENT_PREFIX = "books-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final Pending SHUTDOWN = new Pending(null, 0, null);
+
+    private final Path directory;
+    private final int maxBatchSize;
+    private final long segmentSize;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong lsn = new AtomicLong();
+    // Guards the active segment; held by the writer for each batch and by rotation
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private final List<Segment> closedSegments = new ArrayList<>();
+    // Submitters hold the read side while they check for shutdown and enqueue, and shutdown takes the
+    // write side, so no record can land in the queue behind SHUTDOWN where nobody would write it
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    private Segment activeSegment;
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean closed;
+
+    public FileBookJournal(JournalProperties properties) {
+        this(Path.of(properties.getDirectory()), properties.getMaxBatchSize(), properties.getSegmentSize().toBytes());
+    }
+
+    public FileBookJournal(Path directory, int maxBatchSize, long segmentSize) {
+        this.directory = directory;
+        this.maxBatchSize = maxBatchSize;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public RecoveredCatalog recover() throws IOException {
+        Files.createDirectories(directory);
+        long startNanos = System.nanoTime();
+        Map<Long, Book> books = new HashMap<>();
+        long[] bookIdSequence = new long[1];
+        long snapshotLsn = readSnapshot(directory.resolve(SNAPSHOT_FILE), books, bookIdSequence);
+        boolean empty = snapshotLsn < 0;
+        long lastLsn = Math.max(0, snapshotLsn);
+        long replayed = 0;
+
+        List<Path> segmentFiles = listSegments();
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            Segment segment = new Segment(segmentFiles.get(i), segmentNumber(segmentFiles.get(i)));
+            long validBytes = replaySegment(segment, snapshotLsn, books, bookIdSequence);
+            if (segment.records > 0) {
+                empty = false;
+            }
+            replayed += segment.records;
+            lastLsn = Math.max(lastLsn, segment.maxLsn);
+            long size = Files.size(segment.path);
+            if (i < segmentFiles.size() - 1) {
+                if (validBytes < size) {
+                    throw new IOException("Corrupt book journal segment " + segment.path + " at offset " + validBytes
+                            + " of " + size + "; later segments would be replayed over a gap");
+                }
+                closedSegments.add(segment);
+            } else {
+                if (validBytes < size) {
+                    // Cut off a torn tail so new records follow the last complete one
+                    log.warn("Truncating torn tail of book journal segment {} at offset {} of {}", segment.path,
+                            validBytes, size);
+                    try (FileChannel tail = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                        tail.truncate(validBytes);
+                    }
+                }
+                activeSegment = segment;
+            }
+        }
+        lsn.set(lastLsn);
+        openActiveSegment(segmentFiles.isEmpty() ? 1 : 0);
+        startWriter();
+
+        log.info("Recovered {} books from {} (snapshot lsn {}, {} log records) in {} ms", books.size(), directory,
+                Math.max(0, snapshotLsn), replayed, (System.nanoTime() - startNanos) / 1_000_000);
+        return new RecoveredCatalog(books, bookIdSequence[0], empty);
+    }
+
+    @Override
+    public void appendPut(Book book) {
+        await(submitPut(book));
+    }
+
+    @Override
+    public void appendDelete(long id) {
+        await(submitDelete(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> submitPut(Book book) {
+        return submit(TYPE_PUT, book.getId(), book);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitDelete(long id) {
+        return submit(TYPE_DELETE, id, null);
+    }
+
+    @Override
+    public long lastSequenceNumber() {
+        return lsn.get();
+    }
+
+    @Override
+    public void writeSnapshot(Iterable<Book> books, long bookIdSequence, long throughSequenceNumber) throws IOException {
+        long startNanos = System.nanoTime();
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        // The count is only known after iterating a live view, so reserve it and patch it afterwards
+        int count = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(out), 256 * 1024));
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(throughSequenceNumber);
+            data.writeLong(bookIdSequence);
+            data.writeInt(0);
+            for (Book book : books) {
+                writeBook(data, book);
+                count++;
+            }
+            data.flush();
+            out.write(ByteBuffer.allocate(4).putInt(0, count), 24);
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Every record up to the snapshot point is now redundant; drop closed segments holding nothing newer
+        rotate();
+        int dropped = 0;
+        synchronized (closedSegments) {
+            for (Iterator<Segment> it = closedSegments.iterator(); it.hasNext(); ) {
+                Segment segment = it.next();
+                if (segment.maxLsn <= throughSequenceNumber) {
+                    Files.deleteIfExists(segment.path);
+                    it.remove();
+                    dropped++;
+                }
+            }
+        }
+        log.info("Wrote snapshot of {} books through lsn {} in {} ms, dropped {} log segments", count,
+                throughSequenceNumber, (System.nanoTime() - startNanos) / 1_000_000, dropped);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        submitLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.put(SHUTDOWN);
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        writer.join();
+        segmentLock.lock();
+        try {
+            channel.close();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> submit(byte type, long id, Book book) {
+        submitLock.readLock().lock();
+        try {
+            if (writer == null || closed) {
+                throw new IllegalStateException("Book journal is not open");
+            }
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            long recordLsn = lsn.incrementAndGet();
+            queue.add(new Pending(encode(recordLsn, type, id, book), recordLsn, done));
+            return done;
+        } finally {
+            submitLock.readLock().unlock();
+        }
+    }
+
+    private void await(CompletableFuture<Void> done) {
+        BookJournal.awaitAll(List.of(done));
+    }
+
+    private void startWriter() {
+        writer = new Thread(this::writeLoop, "book-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Everything queued while the previous batch was being forced goes out together
+            queue.drainTo(batch, maxBatchSize - 1);
+            if (batch.remove(SHUTDOWN)) {
+                running = false;
+                queue.drainTo(batch);
+                batch.remove(SHUTDOWN);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        int bytes = 0;
+        for (Pending pending : batch) {
+            bytes += pending.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        long maxLsn = 0;
+        for (Pending pending : batch) {
+            buffer.put(pending.record);
+            maxLsn = Math.max(maxLsn, pending.lsn);
+        }
+        buffer.flip();
+
+        IOException failure = null;
+        segmentLock.lock();
+        try {
+            long start = channel.position();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                activeSegment.records += batch.size();
+                activeSegment.maxLsn = Math.max(activeSegment.maxLsn, maxLsn);
+            } catch (IOException e) {
+                failure = e;
+                // Drop a partially written batch so later records do not follow garbage
+                channel.truncate(start);
+                channel.position(start);
+            }
+        } catch (IOException e) {
+            log.error("Could not roll back a failed book journal write", e);
+        } finally {
+            segmentLock.unlock();
+        }
+
+        for (Pending pending : batch) {
+            if (failure == null) {
+                pending.done.complete(null);
+            } else {
+                pending.done.completeExceptionally(failure);
+            }
+        }
+        if (failure != null) {
+            log.error("Failed to write {} records to the book journal", batch.size(), failure);
+            return;
+        }
+
+        segmentLock.lock();
+        try {
+            if (channel.size() >= segmentSize) {
+                rotateLocked();
+            }
+        } catch (IOException e) {
+            log.error("Could not start a new book journal segment", e);
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        segmentLock.lock();
+        try {
+            rotateLocked();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void rotateLocked() throws IOException {
+        if (activeSegment.records == 0) {
+            return;
+        }
+        channel.force(true);
+        channel.close();
+        synchronized (closedSegments) {
+            closedSegments.add(activeSegment);
+        }
+        openActiveSegment(1);
+    }
+
+    // Continues the recovered last segment when increment is 0, otherwise starts the next one
+    private void openActiveSegment(long increment) throws IOException {
+        if (activeSegment == null || increment > 0) {
+            long number = activeSegment != null ? activeSegment.number + increment : 1;
+            activeSegment = new Segment(directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX)), number);
+        }
+        channel = FileChannel.open(activeSegment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Loads the snapshot into {@code books}; returns its lsn, or -1 if there is no snapshot.
+     */
+    private static long readSnapshot(Path path, Map<Long, Book> books, long[] bookIdSequence) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int format = buffer.getInt() == SNAPSHOT_MAGIC ? buffer.getInt() : -1;
+            if (format != FORMAT_VERSION && format != UNVERSIONED_FORMAT) {
+                throw new IOException("Not a book snapshot of version " + FORMAT_VERSION + ": " + path);
+            }
+            long snapshotLsn = buffer.getLong();
+            bookIdSequence[0] = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                Book book = readBook(buffer, format == FORMAT_VERSION);
+                books.put(book.getId(), book);
+            }
+            return snapshotLsn;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated book snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Applies the segment's records newer than {@code afterLsn}; returns the length of its valid prefix.
+     */
+    private static long replaySegment(Segment segment, long afterLsn, Map<Long, Book> books,
+                                      long[] bookIdSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return start;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return start;
+                }
+                buffer.position(buffer.position() + length);
+
+                long recordLsn = payload.getLong();
+                byte type = payload.get();
+                long id = payload.getLong();
+                segment.records++;
+                segment.maxLsn = Math.max(segment.maxLsn, recordLsn);
+                bookIdSequence[0] = Math.max(bookIdSequence[0], id);
+                if (recordLsn <= afterLsn) {
+                    continue;
+                }
+                if (type == TYPE_PUT || type == TYPE_UNVERSIONED_PUT) {
+                    books.put(id, readBook(payload, type == TYPE_PUT));
+                } else if (type == TYPE_DELETE) {
+                    books.remove(id);
+                } else {
+                    throw new IOException("Unknown record type " + type + " in " + segment.path);
+                }
+            }
+            return buffer.position();
+        }
+    }
+
+    private static byte[] encode(long recordLsn, byte type, long id, Book book) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(recordLsn);
+            out.writeByte(type);
+            out.writeLong(id);
+            if (book != null) {
+                writeBook(out, book);
+            }
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 8, record.capacity() - 8);
+            record.putInt(0, record.capacity() - 8);
+            record.putInt(4, (int) crc.getValue());
+            return record.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBook(DataOutputStream out, Book book) throws IOException {
+        out.writeLong(book.getId());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        out.writeLong(book.getVersion());
+    }
+
+    private static Book readBook(ByteBuffer buffer, boolean versioned) {
+        long id = buffer.getLong();
+        String title = readString(buffer);
+        String author = readString(buffer);
+        return new Book(id, title, author, versioned ? buffer.getLong() : 0);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Pending(byte[] record, long lsn, CompletableFuture<Void> done) {
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long number;
+        long records;
+        long maxLsn;
+
+        Segment(Path path, long number) {
+            this.path = path;
+            this.number = number;
+        }
+    }
+}
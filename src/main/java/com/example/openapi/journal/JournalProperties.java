@@ -0,0 +1,18 @@
+package com.example.openapi.journal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "books.journal")
+public class JournalProperties {
+
+    // When disabled the catalogue lives in memory only and starts from the seed books
+    private boolean enabled = true;
+    private String directory = "data/books";
+    // Most records one group commit writes and forces together
+    private int maxBatchSize = 1024;
+    // A log segment is closed and a new one started once it grows past this
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+}
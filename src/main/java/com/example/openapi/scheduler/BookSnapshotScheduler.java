@@ -0,0 +1,26 @@
+package com.example.openapi.scheduler;
+
+import com.example.openapi.service.BookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookSnapshotScheduler {
+
+    private final BookService bookService;
+
+    // Compacts the book journal so restarts replay only the log written since the last snapshot
+    @Scheduled(fixedDelayString = "${books.journal.snapshot-interval-ms:600000}",
+            initialDelayString = "${books.journal.snapshot-interval-ms:600000}")
+    public void snapshotBooks() {
+        try {
+            bookService.writeSnapshot();
+        } catch (Exception e) {
+            log.error("Error writing book snapshot", e);
+        }
+    }
+}
@@ -6,9 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -22,15 +20,10 @@ public class BookStatisticsScheduler {
         log.info("Starting scheduled book statistics generation...");
         
         try {
-            List<com.example.openapi.entity.Book> allBooks = bookService.getAllBooks();
+            // Read from the author index instead of grouping the whole catalogue
+            Map<String, Integer> authorCount = bookService.countBooksByAuthor();
             
-            int totalBooks = allBooks.size();
-            
-            Map<String, Long> authorCount = allBooks.stream()
-                    .collect(Collectors.groupingBy(
-                            com.example.openapi.entity.Book::getAuthor,
-                            Collectors.counting()
-                    ));
+            int totalBooks = bookService.countBooks();
             
             String mostPopularAuthor = authorCount.entrySet().stream()
                     .max(Map.Entry.comparingByValue())
@@ -42,7 +35,7 @@ public class BookStatisticsScheduler {
             log.info("Number of unique authors: {}", authorCount.size());
             log.info("Most popular author: {} ({} books)", 
                     mostPopularAuthor, 
-                    authorCount.getOrDefault(mostPopularAuthor, 0L));
+                    authorCount.getOrDefault(mostPopularAuthor, 0));
             log.info("Author distribution: {}", authorCount);
             log.info("=== End of Statistics Report ===");
             
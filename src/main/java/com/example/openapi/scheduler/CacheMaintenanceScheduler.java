@@ -0,0 +1,27 @@
+package com.example.openapi.scheduler;
+
+import com.example.openapi.cache.CustomCacheManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheMaintenanceScheduler {
+
+    private final CustomCacheManager cacheManager;
+
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void evictExpiredEntries() {
+        try {
+            int removed = cacheManager.evictExpiredEntries();
+            if (removed > 0) {
+                log.debug("Cache maintenance: removed {} expired entries", removed);
+            }
+        } catch (Exception e) {
+            log.error("Error during cache maintenance", e);
+        }
+    }
+}
@@ -1,38 +1,94 @@
 package com.example.openapi.scheduler;
 
+import com.example.openapi.cache.CustomCache;
+import com.example.openapi.cache.CustomCacheManager;
 import com.example.openapi.service.BookService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class CacheWarmupScheduler {
 
     private final BookService bookService;
+    private final CustomCacheManager cacheManager;
+
+    @Value("${cache.warmup.top-k:100}")
+    private int topK;
+
+    @Value("${cache.warmup.batch-size:20}")
+    private int batchSize;
+
+    @Value("${cache.warmup.concurrency:4}")
+    private int concurrency;
+
+    private ExecutorService warmupExecutor;
+
+    @PostConstruct
+    void startExecutor() {
+        warmupExecutor = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("cache-warmup-"));
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        warmupExecutor.shutdownNow();
+    }
 
     @Scheduled(fixedRate = 300000) // Every 5 minutes (300000 milliseconds)
     public void warmupCache() {
         log.info("Starting cache warmup...");
         
         try {
-            // Preload all books into cache
+            // Preload the current catalogue snapshot
             bookService.getAllBooks();
             log.info("Cache warmup: Loaded all books into cache");
             
-            // Preload first few books by ID (assuming they exist)
-            for (long i = 1; i <= 3; i++) {
-                bookService.findBookById(i);
+            // Refresh the books requested most since the previous run
+            CustomCache booksCache = (CustomCache) cacheManager.getCache("books");
+            List<Object> hotIds = booksCache.getHotKeys(topK);
+            booksCache.resetHotKeys();
+
+            List<Callable<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < hotIds.size(); from += batchSize) {
+                List<Object> batch = hotIds.subList(from, Math.min(from + batchSize, hotIds.size()));
+                batches.add(() -> refresh(batch));
             }
-            log.info("Cache warmup: Preloaded books with IDs 1-3");
+            int refreshed = 0;
+            for (Future<Integer> result : warmupExecutor.invokeAll(batches)) {
+                refreshed += result.get();
+            }
+            log.info("Cache warmup: Refreshed {} of {} hot books in {} batches", refreshed, hotIds.size(), batches.size());
             
             log.info("Cache warmup completed successfully");
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error during cache warmup", e);
         }
     }
-}
 
+    private int refresh(List<Object> ids) {
+        int refreshed = 0;
+        for (Object id : ids) {
+            if (id instanceof Long bookId && bookService.refreshBook(bookId) != null) {
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
+}
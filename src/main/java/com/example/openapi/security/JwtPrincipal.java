@@ -0,0 +1,10 @@
+package com.example.openapi.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a verified token says: its subject, the roles it was issued with and when it expires.
+ */
+public record JwtPrincipal(String subject, List<String> roles, Instant expiresAt) {
+}
@@ -0,0 +1,59 @@
+package com.example.openapi.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Turns a verified token into the user of the request, from one of three sources
+ * ({@code jwt.authorities-source}):
+ * <ul>
+ *     <li>{@code claims}: the subject and roles in the token itself, with no repository access. Role
+ *     changes and deleted users take effect when the token expires.</li>
+ *     <li>{@code cached}: the user store, with lookups kept in the short-lived "jwtUsers" cache, so a
+ *     change is seen within that cache's TTL.</li>
+ *     <li>{@code database}: the user store on every request.</li>
+ * </ul>
+ */
+@Component
+public class JwtUserResolver {
+
+    public static final String CACHE = "jwtUsers";
+
+    enum Source { CLAIMS, CACHED, DATABASE }
+
+    private final UserDetailsService userDetailsService;
+    private final Source source;
+    private final Cache cache;
+
+    public JwtUserResolver(UserDetailsService userDetailsService, CacheManager cacheManager,
+                           @Value("${jwt.authorities-source:database}") String source) {
+        this.userDetailsService = userDetailsService;
+        this.source = Source.valueOf(source.trim().toUpperCase(Locale.ROOT));
+        this.cache = this.source == Source.CACHED ? cacheManager.getCache(CACHE) : null;
+    }
+
+    public UserDetails resolve(JwtPrincipal principal) {
+        return switch (source) {
+            case CLAIMS -> User.withUsername(principal.subject())
+                    .password("")
+                    .authorities(principal.roles().stream().map(SimpleGrantedAuthority::new).toList())
+                    .build();
+            case CACHED -> cache.get(principal.subject(), () -> withoutPassword(principal.subject()));
+            case DATABASE -> userDetailsService.loadUserByUsername(principal.subject());
+        };
+    }
+
+    // The cache only needs who the user is, not their password hash
+    private UserDetails withoutPassword(String username) {
+        UserDetails user = userDetailsService.loadUserByUsername(username);
+        return User.withUserDetails(user).password("").build();
+    }
+}
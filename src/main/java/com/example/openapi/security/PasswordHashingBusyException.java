@@ -0,0 +1,14 @@
+package com.example.openapi.security;
+
+import lombok.Getter;
+
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Too many logins and registrations in progress, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.openapi.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * SHA-256 of a bearer token. It names a token in the verified-token cache and the revocation list without
+ * keeping the token itself, and since the hash is uniformly distributed its leading words serve directly
+ * as hash codes.
+ */
+public final class TokenDigest {
+
+    static final int BYTES = 32;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final byte[] hash;
+    private final long first;
+    private final long second;
+
+    private TokenDigest(byte[] hash) {
+        this.hash = hash;
+        ByteBuffer words = ByteBuffer.wrap(hash);
+        this.first = words.getLong();
+        this.second = words.getLong();
+    }
+
+    public static TokenDigest of(String token) {
+        return new TokenDigest(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static TokenDigest fromBytes(byte[] hash) {
+        if (hash.length != BYTES) {
+            throw new IllegalArgumentException("Expected a " + BYTES + "-byte digest");
+        }
+        return new TokenDigest(hash.clone());
+    }
+
+    long first() {
+        return first;
+    }
+
+    long second() {
+        return second;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.put(hash);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TokenDigest digest && Arrays.equals(hash, digest.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) first;
+    }
+}
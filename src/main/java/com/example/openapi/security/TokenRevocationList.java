@@ -0,0 +1,186 @@
+package com.example.openapi.security;
+
+import com.example.openapi.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens revoked before their expiry, by digest. Lookups check a Bloom filter first, so the common case
+ * (a token that was never revoked) costs a few bit probes; only filter hits consult the exact set.
+ * A revocation is kept until the token would have expired anyway, then pruned, which also rebuilds the
+ * filter since bits cannot be cleared.
+ * <p>
+ * Revocations are appended to a file and replayed on startup; pruning rewrites it. Layout:
+ * <pre>
+ * magic:int version:int (digest:byte[32] expiresAtMillis:long)*
+ * </pre>
+ * A torn record at the end (from a crash mid-append) is ignored.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private static final int MAGIC = 0x4a52564b;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = TokenDigest.BYTES + 8;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final ConcurrentHashMap<TokenDigest, Long> revoked = new ConcurrentHashMap<>();
+    private final long expectedSize;
+    // Null when revocations are kept in memory only
+    private final Path path;
+    // Replaced whole when pruned; revoke and prune hold the monitor, lookups never lock
+    private volatile BloomFilter filter;
+
+    public TokenRevocationList(@Value("${jwt.revocation.expected-size:100000}") long expectedSize,
+                               @Value("${jwt.revocation.persist:true}") boolean persist,
+                               @Value("${jwt.revocation.path:data/revoked-tokens.bin}") String path) {
+        this.expectedSize = expectedSize;
+        this.path = persist ? Paths.get(path) : null;
+        if (this.path != null) {
+            load(System.currentTimeMillis());
+        }
+        this.filter = rebuildFilter();
+    }
+
+    public boolean isRevoked(TokenDigest digest) {
+        return filter.mightContain(digest.first(), digest.second()) && revoked.containsKey(digest);
+    }
+
+    /**
+     * Revokes the token until {@code expiresAt}; it is rejected from the moment this returns.
+     */
+    public synchronized void revoke(TokenDigest digest, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= System.currentTimeMillis() || revoked.putIfAbsent(digest, expiresAtMillis) != null) {
+            return;
+        }
+        filter.add(digest.first(), digest.second());
+        if (path != null) {
+            try {
+                append(digest, expiresAtMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not persist token revocation", e);
+            }
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Drops revocations of tokens that have expired on their own; returns how many.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:60000}")
+    public synchronized int prune() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAtMillis -> expiresAtMillis <= now);
+        int pruned = before - revoked.size();
+        if (pruned == 0) {
+            return 0;
+        }
+        filter = rebuildFilter();
+        if (path != null) {
+            try {
+                rewrite();
+            } catch (IOException e) {
+                log.error("Could not rewrite token revocation file {}", path, e);
+            }
+        }
+        log.debug("Pruned {} expired token revocations, {} left", pruned, revoked.size());
+        return pruned;
+    }
+
+    private BloomFilter rebuildFilter() {
+        // Room to grow before the false positive rate climbs; overflowing only costs more exact lookups
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, 2L * revoked.size()), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(digest -> rebuilt.add(digest.first(), digest.second()));
+        return rebuilt;
+    }
+
+    private void load(long now) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring token revocation file {}: not a revocation list of version {}", path, VERSION);
+                return;
+            }
+            byte[] hash = new byte[TokenDigest.BYTES];
+            while (buffer.remaining() >= RECORD_BYTES) {
+                buffer.get(hash);
+                long expiresAtMillis = buffer.getLong();
+                if (expiresAtMillis > now) {
+                    revoked.put(TokenDigest.fromBytes(hash), expiresAtMillis);
+                }
+            }
+            log.info("Loaded {} token revocations from {}", revoked.size(), path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read token revocation file " + path, e);
+        }
+    }
+
+    private void append(TokenDigest digest, long expiresAtMillis) throws IOException {
+        createParent();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES);
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC).putInt(VERSION);
+            }
+            digest.writeTo(buffer);
+            buffer.putLong(expiresAtMillis).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private void rewrite() throws IOException {
+        createParent();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + revoked.size() * RECORD_BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            for (Map.Entry<TokenDigest, Long> entry : revoked.entrySet()) {
+                entry.getKey().writeTo(buffer);
+                buffer.putLong(entry.getValue());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void createParent() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+}
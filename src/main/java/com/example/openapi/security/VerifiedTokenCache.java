@@ -0,0 +1,46 @@
+package com.example.openapi.security;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Remembers tokens that passed {@link JwtUtil#verify}, so a caller presenting the same token again skips
+ * the signature check. Entries live in the bounded "verifiedTokens" cache, which counts hits and misses;
+ * they are keyed by the token's {@link TokenDigest}, so the cache never holds usable bearer tokens. Only
+ * valid tokens are cached, and a cached token past its own expiry is dropped on the next lookup.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public static final String CACHE = "verifiedTokens";
+
+    private final JwtUtil jwtUtil;
+    private final Cache cache;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil, CacheManager cacheManager) {
+        this.jwtUtil = jwtUtil;
+        this.cache = cacheManager.getCache(CACHE);
+    }
+
+    /**
+     * Same contract as {@link JwtUtil#verify}: the token's principal, or null if it is not valid.
+     */
+    public JwtPrincipal verify(String token) {
+        return verify(token, TokenDigest.of(token));
+    }
+
+    /**
+     * As {@link #verify(String)}, for a caller that already has the token's digest.
+     */
+    public JwtPrincipal verify(String token, TokenDigest digest) {
+        JwtPrincipal principal = cache.get(digest, () -> jwtUtil.verify(token));
+        if (principal != null && principal.expiresAt() != null && !principal.expiresAt().isAfter(Instant.now())) {
+            cache.evict(digest);
+            return null;
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.openapi.service;
+
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.entity.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Recent catalogue changes in a fixed-size ring buffer. A writer claims the next sequence number and
+ * publishes its change into slot {@code sequence & mask}; writes to one book are appended inside the
+ * store's compute, so their order matches the store. Readers scan forward from a position and stop at
+ * the first slot not yet published. Nothing is buffered per reader: one that falls more than the ring's
+ * capacity behind finds its slots overwritten and is told to reload instead, as is one asking for a
+ * position from before the log started (say, from before a restart).
+ */
+class BookChangeLog {
+
+    private final AtomicReferenceArray<BookChange> slots;
+    private final int mask;
+    private final AtomicLong sequence;
+    // Changes at or below this position were never in the ring
+    private final long floor;
+    // Readers waiting for the next append; each leaves the queue once completed
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    BookChangeLog(int capacity, long startSequence) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.sequence = new AtomicLong(startSequence);
+        this.floor = startSequence;
+    }
+
+    void append(BookChange.Operation operation, long bookId, Book book) {
+        long next = sequence.incrementAndGet();
+        slots.set((int) next & mask, new BookChange(next, operation, bookId, book));
+    }
+
+    /**
+     * Wakes the readers waiting for an append. Writers call this after leaving the store's compute, since
+     * completing a waiter runs its continuation (a long-poll reply, an SSE pump) on the calling thread.
+     */
+    void wakeWaiters() {
+        // A waiter enqueues before re-checking the log, so this check loses no wakeup
+        if (!waiters.isEmpty()) {
+            for (CompletableFuture<Void> waiter; (waiter = waiters.poll()) != null; ) {
+                waiter.complete(null);
+            }
+        }
+    }
+
+    long latest() {
+        return sequence.get();
+    }
+
+    BookChangeBatch read(long since, int limit) {
+        long head = sequence.get();
+        if (since > head || since < floor || head - since > slots.length()) {
+            return new BookChangeBatch(List.of(), head, true);
+        }
+        List<BookChange> changes = new ArrayList<>((int) Math.min(limit, head - since));
+        long position = since;
+        while (changes.size() < limit && position < head) {
+            BookChange change = slots.get((int) (position + 1) & mask);
+            if (change == null || change.getSequence() <= position) {
+                // Claimed but not published yet; the reader gets it next time
+                break;
+            }
+            if (change.getSequence() != position + 1) {
+                return new BookChangeBatch(List.of(), sequence.get(), true);
+            }
+            changes.add(change);
+            position++;
+        }
+        return new BookChangeBatch(changes, position, false);
+    }
+
+    /**
+     * Completes once something after {@code since} may be readable; wakeups can be spurious. The caller
+     * may complete it (say on timeout) to stop waiting.
+     */
+    CompletableFuture<Void> awaitAfter(long since) {
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        waiters.add(signal);
+        signal.whenComplete((ignored, error) -> waiters.remove(signal));
+        if (readable(since)) {
+            signal.complete(null);
+        }
+        return signal;
+    }
+
+    private boolean readable(long since) {
+        long head = sequence.get();
+        if (since < floor) {
+            return true;
+        }
+        if (since >= head) {
+            return since > head;
+        }
+        BookChange next = slots.get((int) (since + 1) & mask);
+        return next != null && next.getSequence() > since;
+    }
+}
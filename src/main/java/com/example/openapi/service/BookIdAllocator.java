@@ -0,0 +1,79 @@
+package com.example.openapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out book ids. With one shard every id comes straight from the global sequence, so ids are
+ * dense and follow creation order. With more, ids come in aligned blocks of {@link #BLOCK_SIZE} and
+ * block number {@code b} belongs to shard {@code b mod shards}, the shard {@link BookShards#of} picks
+ * for its ids. Each shard takes its own blocks in turn under its own lock, and a thread always draws
+ * from the same shard: concurrent creates share no counter, and a thread's books all land in one
+ * shard's indexes and barrier. Ids stay unique, but leave gaps and no longer follow creation order
+ * across threads.
+ * <p>
+ * Recovery restarts every shard after the highest id in the journal, so ids reserved but never used
+ * before a restart may be handed out again.
+ */
+class BookIdAllocator {
+
+    static final int BLOCK_SIZE = 256;
+
+    // The single-shard sequence, or the id recovery restarted after
+    private final AtomicLong sequence = new AtomicLong();
+    private final Block[] blocks;
+
+    BookIdAllocator(int shards) {
+        this.blocks = new Block[shards > 1 ? Integer.highestOneBit(shards - 1) << 1 : 0];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new Block();
+        }
+        restartAfter(0);
+    }
+
+    long next() {
+        if (blocks.length == 0) {
+            return sequence.incrementAndGet();
+        }
+        int shard = (int) Thread.currentThread().threadId() & (blocks.length - 1);
+        Block block = blocks[shard];
+        synchronized (block) {
+            if (block.next == block.end) {
+                long number = block.round++ * blocks.length + shard;
+                block.next = number * BLOCK_SIZE;
+                block.end = block.next + BLOCK_SIZE;
+            }
+            return block.next++;
+        }
+    }
+
+    long highWaterMark() {
+        long highest = sequence.get();
+        for (Block block : blocks) {
+            synchronized (block) {
+                highest = Math.max(highest, block.end - 1);
+            }
+        }
+        return highest;
+    }
+
+    // Only before any id is handed out
+    void restartAfter(long lastId) {
+        sequence.set(lastId);
+        // Every shard starts at its first block past the one holding lastId, so id 0 is never used
+        long firstBlock = lastId / BLOCK_SIZE + 1;
+        for (int shard = 0; shard < blocks.length; shard++) {
+            Block block = blocks[shard];
+            synchronized (block) {
+                block.round = Math.ceilDiv(firstBlock - shard, blocks.length);
+                block.next = 0;
+                block.end = 0;
+            }
+        }
+    }
+
+    private static final class Block {
+        long round;
+        long next;
+        long end;
+    }
+}
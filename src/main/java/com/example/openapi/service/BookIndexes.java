@@ -0,0 +1,152 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the book store: id order for keyset pagination, author to books (ordered
+ * by id) and a sorted case-insensitive title index for prefix and range scans. Callers update them
+ * from inside the store's per-id compute, so changes to one book are applied in order.
+ */
+class BookIndexes {
+
+    // Title keys end in a separator plus the zero-padded id, so equal titles stay distinct and ordered
+    private static final char ID_SEPARATOR = '\u0000';
+    // The order of the title index, for merging title scans from several indexes
+    static final Comparator<Book> TITLE_ORDER = Comparator.comparing(BookIndexes::titleKey);
+
+    private final ConcurrentSkipListMap<Long, Book> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Book>> byAuthor = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Book> byTitle = new ConcurrentSkipListMap<>();
+
+    void replace(Book previous, Book current) {
+        if (previous == null) {
+            if (current != null) {
+                add(current);
+            }
+            return;
+        }
+        if (current == null) {
+            remove(previous);
+            return;
+        }
+        // An update overwrites its entries in place and adds a moved key before removing the old one,
+        // so a concurrent scan never finds the book missing
+        byId.put(current.getId(), current);
+        if (current.getAuthor() != null) {
+            addByAuthor(current);
+        }
+        if (previous.getAuthor() != null && !previous.getAuthor().equals(current.getAuthor())) {
+            removeByAuthor(previous);
+        }
+        String previousTitleKey = previous.getTitle() != null ? titleKey(previous) : null;
+        if (current.getTitle() != null) {
+            String currentTitleKey = titleKey(current);
+            byTitle.put(currentTitleKey, current);
+            if (currentTitleKey.equals(previousTitleKey)) {
+                return;
+            }
+        }
+        if (previousTitleKey != null) {
+            byTitle.remove(previousTitleKey, previous);
+        }
+    }
+
+    /**
+     * Up to {@code limit} books with an id greater than {@code cursor} (all ids if null), in id order.
+     */
+    List<Book> findAfter(Long cursor, int limit) {
+        NavigableMap<Long, Book> tail = cursor != null ? byId.tailMap(cursor, false) : byId;
+        List<Book> page = new ArrayList<>(Math.min(limit, 256));
+        for (Book book : tail.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(book);
+        }
+        return page;
+    }
+
+    // Weakly consistent live view; iterating it copies nothing
+    Collection<Book> inIdOrder() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    List<Book> findByAuthor(String author) {
+        ConcurrentSkipListMap<Long, Book> books = byAuthor.get(author);
+        return books != null ? new ArrayList<>(books.values()) : List.of();
+    }
+
+    List<Book> findByTitlePrefix(String prefix) {
+        String from = normalize(prefix);
+        return new ArrayList<>(byTitle.subMap(from, true, from + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Books whose title sorts in [from, to), ignoring case.
+     */
+    List<Book> findByTitleRange(String from, String to) {
+        return new ArrayList<>(byTitle.subMap(normalize(from), true, normalize(to), false).values());
+    }
+
+    Map<String, Integer> authorCounts() {
+        NavigableMap<String, Integer> counts = new TreeMap<>();
+        byAuthor.forEach((author, books) -> counts.put(author, books.size()));
+        return counts;
+    }
+
+    private void add(Book book) {
+        byId.put(book.getId(), book);
+        if (book.getAuthor() != null) {
+            addByAuthor(book);
+        }
+        if (book.getTitle() != null) {
+            byTitle.put(titleKey(book), book);
+        }
+    }
+
+    private void remove(Book book) {
+        byId.remove(book.getId(), book);
+        if (book.getAuthor() != null) {
+            removeByAuthor(book);
+        }
+        if (book.getTitle() != null) {
+            byTitle.remove(titleKey(book), book);
+        }
+    }
+
+    private void addByAuthor(Book book) {
+        // Inside compute, so a concurrent removal of the author's last book cannot drop this one
+        byAuthor.compute(book.getAuthor(), (author, books) -> {
+            ConcurrentSkipListMap<Long, Book> target = books != null ? books : new ConcurrentSkipListMap<>();
+            target.put(book.getId(), book);
+            return target;
+        });
+    }
+
+    private void removeByAuthor(Book book) {
+        byAuthor.computeIfPresent(book.getAuthor(), (author, books) -> {
+            books.remove(book.getId(), book);
+            return books.isEmpty() ? null : books;
+        });
+    }
+
+    private static String titleKey(Book book) {
+        return normalize(book.getTitle()) + ID_SEPARATOR + String.format("%019d", book.getId());
+    }
+
+    private static String normalize(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+}
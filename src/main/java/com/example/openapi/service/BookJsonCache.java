@@ -0,0 +1,80 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Book responses kept as encoded UTF-8 JSON, plus a gzipped copy when the body is large enough to
+ * gain from it, so a hit is written to the client without going through Jackson. Entries live in the
+ * booksListJson (by catalogue version) and booksJson (by id) caches, so cache evictions and the cache
+ * endpoints cover them like any other entry.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookJsonCache {
+
+    public static final String LIST_CACHE = "booksListJson";
+    public static final String BOOK_CACHE = "booksJson";
+
+    // gzip is null when the body is below the compression threshold
+    public record EncodedJson(long version, byte[] json, byte[] gzip) implements Serializable {
+    }
+
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+
+    @Value("${books.response.gzip-min-size:1024}")
+    private int gzipMinSize;
+
+    /**
+     * The book list as of {@code catalogVersion} or later.
+     */
+    public EncodedJson encodedBooks(long catalogVersion) {
+        return cacheManager.getCache(LIST_CACHE)
+                .get(catalogVersion, () -> encode(catalogVersion, bookService.getAllBooks()));
+    }
+
+    public EncodedJson encodedBook(Book book) {
+        Cache cache = cacheManager.getCache(BOOK_CACHE);
+        EncodedJson cached = cache.get(book.getId(), EncodedJson.class);
+        // An entry for an older version of the book is simply replaced
+        if (cached != null && cached.version() == book.getVersion()) {
+            return cached;
+        }
+        EncodedJson encoded = encode(book.getVersion(), book);
+        cache.put(book.getId(), encoded);
+        return encoded;
+    }
+
+    private EncodedJson encode(long version, Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new EncodedJson(version, json, json.length >= gzipMinSize ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 8192)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inverted index over book titles and authors. Terms are lower-cased letter/digit runs; each posting
+ * holds the books containing the term with a weight (title hits count more than author hits), both by
+ * id for probing and in impact order (highest weight first) for early termination. The last query term
+ * also matches as a prefix through a sorted term dictionary, so partial input finds results.
+ * Results must contain every query term and are ranked by the sum of weight * idf; the scan stops as
+ * soon as no remaining candidate can beat the current top results.
+ */
+class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    // Prefix matches score lower than whole-word matches
+    private static final double PREFIX_DISCOUNT = 0.5;
+    // Cap on dictionary terms a short prefix may expand to
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // Impact keys pack (MAX_WEIGHT - weight) above a 40-bit id, so ascending order is best first
+    private static final int ID_BITS = 40;
+    private static final int MAX_WEIGHT = (1 << 22) - 1;
+    private static final double EPSILON = 1e-9;
+
+    private final ConcurrentHashMap<String, Posting> postings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> dictionary = new ConcurrentSkipListSet<>();
+    private final AtomicInteger documentCount = new AtomicInteger();
+
+    record Hit(long id, double score) {
+    }
+
+    void replace(Book previous, Book current) {
+        // The new terms go in before the old ones come out, so an update never hides the book from a
+        // concurrent search for a term both versions contain
+        Map<String, Integer> currentTerms = current != null ? terms(current) : Map.of();
+        currentTerms.forEach((term, weight) -> postings.compute(term, (t, posting) -> {
+            Posting target = posting != null ? posting : new Posting();
+            if (posting == null) {
+                dictionary.add(t);
+            }
+            target.put(current.getId(), Math.min(weight, MAX_WEIGHT));
+            return target;
+        }));
+        if (previous != null) {
+            terms(previous).keySet().stream().filter(term -> !currentTerms.containsKey(term))
+                    .forEach(term -> postings.computeIfPresent(term, (t, posting) -> {
+                        posting.remove(previous.getId());
+                        if (posting.isEmpty()) {
+                            dictionary.remove(t);
+                            return null;
+                        }
+                        return posting;
+                    }));
+        }
+        if (previous == null && current != null) {
+            documentCount.incrementAndGet();
+        } else if (previous != null && current == null) {
+            documentCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} hits, best first; equal scores are ordered by id.
+     */
+    List<Hit> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int total = Math.max(1, documentCount.get());
+        List<TermMatch> matches = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            TermMatch match = i == tokens.size() - 1
+                    ? matchPrefix(tokens.get(i), total)
+                    : matchExact(tokens.get(i), total);
+            if (match.postings().isEmpty()) {
+                return List.of();
+            }
+            matches.add(match);
+        }
+
+        // Walk the rarest term in impact order and probe the others by id
+        matches.sort(Comparator.comparingLong(TermMatch::size));
+        TermMatch driver = matches.get(0);
+        double othersMaxScore = 0;
+        for (int i = 1; i < matches.size(); i++) {
+            othersMaxScore += matches.get(i).maxScore();
+        }
+        Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::id).reversed());
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, 1024) + 1, worstFirst);
+        Set<Long> seen = driver.postings().size() > 1 ? new HashSet<>() : null;
+
+        ImpactMerge merge = new ImpactMerge(driver);
+        candidates:
+        while (merge.hasNext()) {
+            Hit entry = merge.next();
+            if (top.size() == limit) {
+                Hit worst = top.peek();
+                double bound = entry.score() + othersMaxScore;
+                // Later entries score at most this; a single term also breaks ties by ascending id
+                if (bound + EPSILON < worst.score()
+                        || (matches.size() == 1 && bound <= worst.score() && entry.id() > worst.id())) {
+                    break;
+                }
+            }
+            if (seen != null && !seen.add(entry.id())) {
+                continue;
+            }
+            double score = entry.score();
+            for (int i = 1; i < matches.size(); i++) {
+                double termScore = matches.get(i).score(entry.id());
+                if (termScore == 0) {
+                    continue candidates;
+                }
+                score += termScore;
+            }
+            top.offer(new Hit(entry.id(), score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(worstFirst.reversed());
+        return hits;
+    }
+
+    private TermMatch matchExact(String term, int total) {
+        Posting posting = postings.get(term);
+        if (posting == null) {
+            return new TermMatch(List.of(), new double[0]);
+        }
+        return new TermMatch(List.of(posting), new double[]{idf(total, posting.size())});
+    }
+
+    private TermMatch matchPrefix(String prefix, int total) {
+        List<Posting> matched = new ArrayList<>();
+        double[] idfs = new double[MAX_PREFIX_EXPANSIONS];
+        for (String term : dictionary.tailSet(prefix)) {
+            if (!term.startsWith(prefix) || matched.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            Posting posting = postings.get(term);
+            if (posting != null) {
+                idfs[matched.size()] = idf(total, posting.size()) * (term.equals(prefix) ? 1 : PREFIX_DISCOUNT);
+                matched.add(posting);
+            }
+        }
+        return new TermMatch(matched, idfs);
+    }
+
+    private static double idf(int total, int documentFrequency) {
+        return Math.log(1 + (double) total / documentFrequency);
+    }
+
+    private static Map<String, Integer> terms(Book book) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(book.getAuthor()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Integer::sum));
+        return weights;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static long impactKey(int weight, long id) {
+        return ((long) (MAX_WEIGHT - weight) << ID_BITS) | id;
+    }
+
+    /**
+     * Books containing one term. Mutated only inside the postings map's compute for that term;
+     * readers may briefly see an id in one view and not the other, which only drops that candidate.
+     */
+    private static final class Posting {
+        final ConcurrentHashMap<Long, Integer> weights = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<Long> byImpact = new ConcurrentSkipListSet<>();
+
+        void put(long id, int weight) {
+            Integer previous = weights.put(id, weight);
+            if (previous == null || previous != weight) {
+                byImpact.add(impactKey(weight, id));
+                if (previous != null) {
+                    byImpact.remove(impactKey(previous, id));
+                }
+            }
+        }
+
+        void remove(long id) {
+            Integer previous = weights.remove(id);
+            if (previous != null) {
+                byImpact.remove(impactKey(previous, id));
+            }
+        }
+
+        boolean isEmpty() {
+            return weights.isEmpty();
+        }
+
+        int size() {
+            return weights.size();
+        }
+
+        int maxWeight() {
+            Long best = byImpact.isEmpty() ? null : byImpact.first();
+            return best != null ? MAX_WEIGHT - (int) (best >>> ID_BITS) : 0;
+        }
+    }
+
+    /**
+     * Postings a query term matched, with the idf factor of each; a prefix may match several terms.
+     */
+    private record TermMatch(List<Posting> postings, double[] idfs) {
+
+        long size() {
+            long size = 0;
+            for (Posting posting : postings) {
+                size += posting.size();
+            }
+            return size;
+        }
+
+        double maxScore() {
+            double best = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                best = Math.max(best, postings.get(i).maxWeight() * idfs[i]);
+            }
+            return best;
+        }
+
+        // A book matching several expansions of a prefix keeps its best one; 0 means no match
+        double score(long id) {
+            double best = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                Integer weight = postings.get(i).weights.get(id);
+                if (weight != null) {
+                    best = Math.max(best, weight * idfs[i]);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Merges the impact-ordered postings of a term match into one stream of (id, score),
+     * highest score first and ascending id among equal scores.
+     */
+    private static final class ImpactMerge {
+        private final PriorityQueue<Cursor> heads = new PriorityQueue<>(
+                Comparator.comparingDouble(Cursor::score).reversed().thenComparingLong(Cursor::id));
+
+        ImpactMerge(TermMatch match) {
+            for (int i = 0; i < match.postings().size(); i++) {
+                Cursor cursor = new Cursor(match.postings().get(i).byImpact.iterator(), match.idfs()[i]);
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        Hit next() {
+            Cursor cursor = heads.poll();
+            Hit hit = new Hit(cursor.id, cursor.score);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+            return hit;
+        }
+    }
+
+    private static final class Cursor {
+        private final Iterator<Long> keys;
+        private final double idf;
+        private long id;
+        private double score;
+
+        Cursor(Iterator<Long> keys, double idf) {
+            this.keys = keys;
+            this.idf = idf;
+        }
+
+        boolean advance() {
+            if (!keys.hasNext()) {
+                return false;
+            }
+            long key = keys.next();
+            id = key & ((1L << ID_BITS) - 1);
+            score = (MAX_WEIGHT - (int) (key >>> ID_BITS)) * idf;
+            return true;
+        }
+
+        long id() {
+            return id;
+        }
+
+        double score() {
+            return score;
+        }
+    }
+}
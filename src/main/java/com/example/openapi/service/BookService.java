@@ -1,58 +1,431 @@
 package com.example.openapi.service;
 
+import com.example.openapi.cache.CustomCacheManager;
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.dto.BulkItemResult;
+import com.example.openapi.dto.BulkResult;
 import com.example.openapi.entity.Book;
-import org.springframework.cache.annotation.CacheEvict;
+import com.example.openapi.journal.BookJournal;
+import com.example.openapi.journal.NoOpBookJournal;
+import com.example.openapi.util.ConcurrentLongMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
 
 @Service
 public class BookService {
-    private final Map<Long, Book> bookStore = new ConcurrentHashMap<>();
-    private final AtomicLong sequence = new AtomicLong(3);
+    // Many stripes, since a write holds its stripe while the journal forces the record to disk
+    private final ConcurrentLongMap<Book> bookStore = new ConcurrentLongMap<>(1024, 256);
+    private final BookIdAllocator idAllocator;
+    // Bumped after every write; the booksList snapshot is keyed by it, so a write retires the old
+    // snapshot without touching the per-id "books" entries
+    private final AtomicLong catalogVersion = new AtomicLong();
+    // Secondary indexes and snapshot barriers, partitioned by id
+    private final BookShards shards;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final BookJournal journal;
+    // Written from inside the store's compute, so the cached book for an id follows store order even
+    // under concurrent writers; null without a cache manager
+    private final Cache booksCache;
+    private final Cache encodedBookCache;
+    private final BookChangeLog changeLog;
 
-    // Start data
     public BookService() {
-        bookStore.put(1L, new Book(1L, "The Lord of the Rings", "J.R.R. Tolkien"));
-        bookStore.put(2L, new Book(2L, "Dune", "Frank Herbert"));
-        bookStore.put(3L, new Book(3L, "1984", "George Orwell"));
+        this(new NoOpBookJournal());
     }
 
-    @Cacheable(value = "booksList")
+    public BookService(BookJournal journal) {
+        this(journal, null, 65_536, 1);
+    }
+
+    @Autowired
+    public BookService(BookJournal journal, @Nullable CacheManager cacheManager,
+                       @Value("${books.changes.capacity:65536}") int changeLogCapacity,
+                       @Value("${books.store.shards:1}") int storeShards) {
+        this.journal = journal;
+        this.booksCache = cacheManager != null ? cacheManager.getCache("books") : null;
+        this.encodedBookCache = cacheManager != null ? cacheManager.getCache(BookJsonCache.BOOK_CACHE) : null;
+        this.idAllocator = new BookIdAllocator(storeShards);
+        this.shards = new BookShards(storeShards);
+        BookJournal.RecoveredCatalog catalog;
+        try {
+            catalog = journal.recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the book catalogue", e);
+        }
+        // Every structure is concurrent, so rebuild them on all cores
+        catalog.books().values().parallelStream().forEach(book -> bookStore.compute(book.getId(), (key, previous) -> {
+            index(previous, book);
+            return book;
+        }));
+        idAllocator.restartAfter(catalog.sequence());
+        if (cacheManager instanceof CustomCacheManager caches) {
+            // A cache snapshot can predate writes recovered from the journal, so keep only restored
+            // entries that match the recovered store
+            caches.setRestoreFilter("books", (key, value) -> key instanceof Long id && Objects.equals(value, bookStore.get(id)));
+            caches.setRestoreFilter(BookJsonCache.BOOK_CACHE, (key, value) -> {
+                Book book = key instanceof Long id ? bookStore.get(id) : null;
+                return book != null && value instanceof BookJsonCache.EncodedJson json && json.version() == book.getVersion();
+            });
+        }
+        // Continue after the journal's last record, so change positions from before a restart look old
+        this.changeLog = new BookChangeLog(changeLogCapacity, journal.lastSequenceNumber());
+        // Start data, written only on the very first start
+        if (catalog.empty()) {
+            createBook(new Book(null, "The Lord of the Rings", "J.R.R. Tolkien"));
+            createBook(new Book(null, "Dune", "Frank Herbert"));
+            createBook(new Book(null, "1984", "George Orwell"));
+        }
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    @Cacheable(value = "booksList", key = "#root.target.catalogVersion", sync = true)
     public List<Book> getAllBooks() {
-        return new ArrayList<>(bookStore.values());
+        return shards.all();
+    }
+
+    /**
+     * Up to {@code limit} changes after position {@code since}, oldest first.
+     */
+    public BookChangeBatch findChangesSince(long since, int limit) {
+        return changeLog.read(since, limit);
+    }
+
+    /**
+     * Completes when changes after {@code since} may be available; see {@link BookChangeLog#awaitAfter}.
+     */
+    public CompletableFuture<Void> awaitChangesAfter(long since) {
+        return changeLog.awaitAfter(since);
+    }
+
+    public long getLatestChangeSequence() {
+        return changeLog.latest();
+    }
+
+    public List<Book> findBooksAfter(Long cursor, int limit) {
+        return shards.findAfter(cursor, limit);
+    }
+
+    /**
+     * Live id-ordered view for streaming; books written during iteration may or may not appear.
+     */
+    public Iterable<Book> iterateBooks() {
+        return shards.inIdOrder();
     }
 
-    @Cacheable(value = "books", key = "#id")
+    public List<Book> findBooksByAuthor(String author) {
+        return shards.findByAuthor(author);
+    }
+
+    public List<Book> findBooksByTitlePrefix(String titlePrefix) {
+        return shards.findByTitlePrefix(titlePrefix);
+    }
+
+    public List<Book> findBooksByTitleRange(String fromTitle, String toTitle) {
+        return shards.findByTitleRange(fromTitle, toTitle);
+    }
+
+    /**
+     * Full-text search over titles and authors, best match first; the last word also matches as a prefix.
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        List<Book> results = new ArrayList<>();
+        for (BookSearchIndex.Hit hit : searchIndex.search(query, limit)) {
+            Book book = bookStore.get(hit.id());
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    // Read from the store's counters, without building the list
+    public int countBooks() {
+        return bookStore.size();
+    }
+
+    public Map<String, Integer> countBooksByAuthor() {
+        return shards.authorCounts();
+    }
+
+    @Cacheable(value = "books", key = "#id", sync = true)
     public Book findBookById(Long id) {
         return bookStore.get(id);
     }
 
-    @CacheEvict(value = {"books", "booksList"}, allEntries = true)
+    /**
+     * Caches the stored book again, restarting its entry's lifetime. The put runs under the book's stripe
+     * lock like the writes' puts, so it can never replace a newer cached version with the one it read.
+     */
+    public Book refreshBook(Long id) {
+        if (booksCache == null) {
+            return bookStore.get(id);
+        }
+        return bookStore.computeIfPresent(id, (key, current) -> {
+            booksCache.put(key, current);
+            return current;
+        });
+    }
+
     public Book createBook(Book book) {
-        long newId = sequence.incrementAndGet();
+        long newId = idAllocator.next();
         book.setId(newId);
-        bookStore.put(newId, book);
+        store(book);
+        catalogVersion.incrementAndGet();
         return book;
     }
 
-    @CacheEvict(value = {"books", "booksList"}, allEntries = true)
     public Book updateBook(Long id, Book updatedBook) {
-        if (!bookStore.containsKey(id)) {
+        return replace(id, updatedBook, version -> true);
+    }
+
+    /**
+     * Compare-and-set update: replaces the book only while its version satisfies {@code expectedVersion},
+     * and throws {@link BookVersionConflictException} otherwise. Returns null if there is no such book.
+     */
+    public Book updateBook(Long id, Book updatedBook, LongPredicate expectedVersion) {
+        return replace(id, updatedBook, expectedVersion);
+    }
+
+    public void deleteBook(Long id) {
+        boolean[] removed = new boolean[1];
+        writeIfPresent(id, (key, previous) -> {
+            journal.appendDelete(id);
+            apply(previous, null);
+            removed[0] = true;
             return null;
+        });
+        if (removed[0]) {
+            catalogVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Creates all books as one batch: their journal records share group commits and the catalogue version
+     * moves once at the end. Unlike single writes, an item is visible as soon as it is applied and durable
+     * once the call returns.
+     */
+    public BulkResult createBooks(List<Book> books) {
+        BulkResult result = new BulkResult();
+        int written = 0;
+        List<CompletableFuture<Void>> pending = new ArrayList<>(books.size());
+        try {
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                if (book == null) {
+                    result.add(i, null, BulkItemResult.Status.INVALID, "Book cannot be null");
+                    continue;
+                }
+                book.setId(idAllocator.next());
+                write(book.getId(), (key, previous) -> {
+                    book.setVersion(nextVersion(previous));
+                    pending.add(journal.submitPut(book));
+                    apply(previous, book);
+                    return book;
+                });
+                written++;
+                result.add(i, book.getId(), BulkItemResult.Status.CREATED, null);
+            }
+        } finally {
+            finishBatch(written);
+        }
+        BookJournal.awaitAll(pending);
+        return result;
+    }
+
+    /**
+     * Replaces existing books by the ids they carry, batched like {@link #createBooks}.
+     */
+    public BulkResult updateBooks(List<Book> books) {
+        BulkResult result = new BulkResult();
+        int written = 0;
+        List<CompletableFuture<Void>> pending = new ArrayList<>(books.size());
+        try {
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                if (book == null || book.getId() == null) {
+                    result.add(i, null, BulkItemResult.Status.INVALID, "Book id is required");
+                    continue;
+                }
+                Book stored = writeIfPresent(book.getId(), (key, previous) -> {
+                    book.setVersion(nextVersion(previous));
+                    pending.add(journal.submitPut(book));
+                    apply(previous, book);
+                    return book;
+                });
+                if (stored == null) {
+                    result.add(i, book.getId(), BulkItemResult.Status.NOT_FOUND, "Book not found");
+                    continue;
+                }
+                written++;
+                result.add(i, book.getId(), BulkItemResult.Status.UPDATED, null);
+            }
+        } finally {
+            finishBatch(written);
+        }
+        BookJournal.awaitAll(pending);
+        return result;
+    }
+
+    /**
+     * Deletes books by id, batched like {@link #createBooks}.
+     */
+    public BulkResult deleteBooks(List<Long> ids) {
+        BulkResult result = new BulkResult();
+        int deleted = 0;
+        List<CompletableFuture<Void>> pending = new ArrayList<>(ids.size());
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                Long id = ids.get(i);
+                if (id == null) {
+                    result.add(i, null, BulkItemResult.Status.INVALID, "Book id is required");
+                    continue;
+                }
+                boolean[] removed = new boolean[1];
+                writeIfPresent(id, (key, previous) -> {
+                    pending.add(journal.submitDelete(id));
+                    apply(previous, null);
+                    removed[0] = true;
+                    return null;
+                });
+                if (removed[0]) {
+                    deleted++;
+                    result.add(i, id, BulkItemResult.Status.DELETED, null);
+                } else {
+                    result.add(i, id, BulkItemResult.Status.NOT_FOUND, "Book not found");
+                }
+            }
+        } finally {
+            finishBatch(deleted);
+        }
+        BookJournal.awaitAll(pending);
+        return result;
+    }
+
+    /**
+     * Writes a compacted snapshot of the catalogue so that recovery only replays the log written after it.
+     */
+    public synchronized void writeSnapshot() throws IOException {
+        long throughSequenceNumber;
+        long bookIdSequence;
+        long[] stamps = shards.lockAll();
+        try {
+            throughSequenceNumber = journal.lastSequenceNumber();
+            bookIdSequence = idAllocator.highWaterMark();
+        } finally {
+            shards.unlockAll(stamps);
+        }
+        // Writes made while iterating may or may not be included; recovery replays them from the log
+        journal.writeSnapshot(shards.inIdOrder(), bookIdSequence, throughSequenceNumber);
+    }
+
+    // The change is logged (and on disk) before it becomes visible. Compute serializes writers of the
+    // same id, so log order and index order match the store for every book.
+    private void store(Book book) {
+        write(book.getId(), (key, previous) -> {
+            book.setVersion(nextVersion(previous));
+            journal.appendPut(book);
+            apply(previous, book);
+            return book;
+        });
+    }
+
+    // Every write runs inside the store's compute for its id, holding the read side of its shard's
+    // snapshot barrier; bulk writes take it per item, so a snapshot never waits for a whole batch.
+    // Change readers are woken only once both are released.
+    private Book write(long id, ConcurrentLongMap.Remapping<Book> change) {
+        StampedLock barrier = shards.of(id).barrier;
+        long stamp = barrier.readLock();
+        try {
+            return bookStore.compute(id, change);
+        } finally {
+            barrier.unlockRead(stamp);
+            changeLog.wakeWaiters();
+        }
+    }
+
+    private Book writeIfPresent(long id, ConcurrentLongMap.Remapping<Book> change) {
+        return write(id, (key, previous) -> previous != null ? change.apply(key, previous) : null);
+    }
+
+    // Runs even if an item fails part way: the items applied before it are visible already, so the list
+    // snapshot must move on
+    private void finishBatch(int applied) {
+        if (applied > 0) {
+            catalogVersion.incrementAndGet();
+        }
+    }
+
+    // The version is checked again under the book's stripe lock, so a concurrent writer or delete
+    // either happens before the check or fails it
+    private Book replace(Long id, Book updatedBook, LongPredicate expectedVersion) {
+        // Stale versions fail here, without taking a lock or touching the journal
+        Book current = bookStore.get(id);
+        if (current != null && !expectedVersion.test(current.getVersion())) {
+            throw new BookVersionConflictException(id, current.getVersion());
         }
         updatedBook.setId(id);
-        bookStore.put(id, updatedBook);
+        Book stored;
+        stored = writeIfPresent(id, (key, previous) -> {
+            if (!expectedVersion.test(previous.getVersion())) {
+                throw new BookVersionConflictException(id, previous.getVersion());
+            }
+            updatedBook.setVersion(nextVersion(previous));
+            journal.appendPut(updatedBook);
+            apply(previous, updatedBook);
+            return updatedBook;
+        });
+        if (stored == null) {
+            return null;
+        }
+        catalogVersion.incrementAndGet();
         return updatedBook;
     }
 
-    @CacheEvict(value = {"books", "booksList"}, allEntries = true)
-    public void deleteBook(Long id) {
-        bookStore.remove(id);
+    // Versions only grow for a given id, so (id, version) names one state of a book
+    private static long nextVersion(Book previous) {
+        return previous != null ? previous.getVersion() + 1 : 1;
+    }
+
+    // Runs inside the store's compute for the book, so indexes, the books cache and the change log
+    // follow store order
+    private void apply(Book previous, Book current) {
+        index(previous, current);
+        if (current != null) {
+            if (booksCache != null) {
+                booksCache.put(current.getId(), current);
+            }
+            changeLog.append(BookChange.Operation.PUT, current.getId(), current);
+        } else {
+            if (booksCache != null) {
+                booksCache.evict(previous.getId());
+                encodedBookCache.evict(previous.getId());
+            }
+            changeLog.append(BookChange.Operation.DELETE, previous.getId(), null);
+        }
+    }
+
+    private void index(Book previous, Book current) {
+        shards.of(current != null ? current.getId() : previous.getId()).indexes.replace(previous, current);
+        searchIndex.replace(previous, current);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * The catalogue's per-write state, partitioned by id: each shard has its own secondary indexes and its
+ * own snapshot barrier, so writes to different shards share no lock word and no index. Whole-catalogue
+ * reads (the full list, author counts) fan out to the shards in parallel; other queries ask every shard
+ * and merge in the order a single index would return. One shard is the unsharded layout.
+ */
+class BookShards {
+
+    private static final Comparator<Book> ID_ORDER = Comparator.comparing(Book::getId);
+
+    private final Shard[] shards;
+
+    static final class Shard {
+        final BookIndexes indexes = new BookIndexes();
+        // Writes hold the read side; a snapshot takes the write side of every shard just long enough
+        // to learn a log position that every completed write is at or below
+        final StampedLock barrier = new StampedLock();
+    }
+
+    BookShards(int count) {
+        this.shards = new Shard[count > 1 ? Integer.highestOneBit(count - 1) << 1 : 1];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    // By id block, matching the shard BookIdAllocator hands each block to, so one thread's creates stay
+    // in one shard
+    Shard of(long id) {
+        return shards[indexOf(id)];
+    }
+
+    int indexOf(long id) {
+        return (int) (id / BookIdAllocator.BLOCK_SIZE) & (shards.length - 1);
+    }
+
+    int count() {
+        return shards.length;
+    }
+
+    long[] lockAll() {
+        long[] stamps = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            stamps[i] = shards[i].barrier.writeLock();
+        }
+        return stamps;
+    }
+
+    void unlockAll(long[] stamps) {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].barrier.unlockWrite(stamps[i]);
+        }
+    }
+
+    List<Book> all() {
+        if (shards.length == 1) {
+            return new ArrayList<>(shards[0].indexes.inIdOrder());
+        }
+        List<List<Book>> parts = Arrays.stream(shards).parallel()
+                .<List<Book>>map(shard -> new ArrayList<>(shard.indexes.inIdOrder()))
+                .toList();
+        List<Book> books = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(books::addAll);
+        // Each part is already sorted, and the sort merges runs
+        books.sort(ID_ORDER);
+        return books;
+    }
+
+    /**
+     * Weakly consistent live view in id order, merged lazily from the shards.
+     */
+    Iterable<Book> inIdOrder() {
+        if (shards.length == 1) {
+            return shards[0].indexes.inIdOrder();
+        }
+        return () -> new MergingIterator(Arrays.stream(shards).map(shard -> shard.indexes.inIdOrder().iterator()).toList());
+    }
+
+    List<Book> findAfter(Long cursor, int limit) {
+        if (shards.length == 1) {
+            return shards[0].indexes.findAfter(cursor, limit);
+        }
+        List<Book> books = collect(shard -> shard.indexes.findAfter(cursor, limit), ID_ORDER);
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+    List<Book> findByAuthor(String author) {
+        return collect(shard -> shard.indexes.findByAuthor(author), ID_ORDER);
+    }
+
+    List<Book> findByTitlePrefix(String prefix) {
+        return collect(shard -> shard.indexes.findByTitlePrefix(prefix), BookIndexes.TITLE_ORDER);
+    }
+
+    List<Book> findByTitleRange(String from, String to) {
+        return collect(shard -> shard.indexes.findByTitleRange(from, to), BookIndexes.TITLE_ORDER);
+    }
+
+    Map<String, Integer> authorCounts() {
+        if (shards.length == 1) {
+            return shards[0].indexes.authorCounts();
+        }
+        return Arrays.stream(shards).parallel()
+                .map(shard -> shard.indexes.authorCounts())
+                .collect(TreeMap::new, BookShards::addCounts, BookShards::addCounts);
+    }
+
+    private List<Book> collect(Function<Shard, List<Book>> query, Comparator<Book> order) {
+        if (shards.length == 1) {
+            return query.apply(shards[0]);
+        }
+        List<Book> books = new ArrayList<>();
+        for (Shard shard : shards) {
+            books.addAll(query.apply(shard));
+        }
+        books.sort(order);
+        return books;
+    }
+
+    private static void addCounts(NavigableMap<String, Integer> total, Map<String, Integer> counts) {
+        counts.forEach((author, count) -> total.merge(author, count, Integer::sum));
+    }
+
+    private static final class MergingIterator implements Iterator<Book> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(head -> head.book.getId()));
+
+        MergingIterator(List<Iterator<Book>> sources) {
+            for (Iterator<Book> source : sources) {
+                advance(source);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Book next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.source);
+            return head.book;
+        }
+
+        private void advance(Iterator<Book> source) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        private record Head(Book book, Iterator<Book> source) {
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.openapi.service;
+
+import lombok.Getter;
+
+/**
+ * A conditional update found the book at a different version than the caller expected.
+ */
+@Getter
+public class BookVersionConflictException extends RuntimeException {
+
+    private final long bookId;
+    private final long currentVersion;
+
+    public BookVersionConflictException(long bookId, long currentVersion) {
+        super("Book " + bookId + " is at version " + currentVersion);
+        this.bookId = bookId;
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.openapi.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bloom filter over keys that arrive already hashed as two 64-bit words (double hashing: probe i is
+ * {@code h1 + i * h2}, with h2 forced odd so the probes of a key never repeat). A negative answer
+ * is exact; a positive one is wrong with about the configured probability while no more than the
+ * expected number of keys has been added. Adds set bits atomically and may run concurrently with
+ * each other and with lookups; there is no removal.
+ */
+public class BloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bitMask;
+    private final int hashes;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long keys = Math.max(1, expectedKeys);
+        long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // A power of two, so a probe is a mask instead of a division
+        long size = Long.highestOneBit(Math.max(64, bits - 1) << 1);
+        this.words = new long[(int) Math.min(size >>> 6, Integer.MAX_VALUE - 8)];
+        this.bitMask = ((long) words.length << 6) - 1;
+        this.hashes = (int) Math.min(16, Math.max(1, Math.round((double) size / keys * Math.log(2))));
+    }
+
+    public void add(long h1, long h2) {
+        long probe = h1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = probe & bitMask;
+            WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+            probe += h2 | 1;
+        }
+    }
+
+    public boolean mightContain(long h1, long h2) {
+        long probe = h1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = probe & bitMask;
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            probe += h2 | 1;
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return (long) words.length << 6;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+}
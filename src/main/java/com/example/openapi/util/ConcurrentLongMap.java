@@ -0,0 +1,364 @@
+package com.example.openapi.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Concurrent map from primitive {@code long} keys to non-null values, without a boxed key or node
+ * object per entry. Keys are split over lock-striped segments; each segment is an open-addressing
+ * table of parallel {@code long[]} keys and {@code Object[]} values with linear probing.
+ * <p>
+ * Reads never lock: a value is published with a release store after its key, and a key never changes
+ * once written into a table, so a reader that sees a value also sees the right key. Removal leaves a
+ * tombstone in place (reused only by the same key) and tombstones are dropped when the segment rehashes
+ * into a new table. Writes to a segment take its lock; the compute methods run their function under it,
+ * so calls for the same key are serialized.
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    private static final int DEFAULT_SEGMENTS = 64;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Remapping function for {@link #compute}; returning null removes the mapping.
+     */
+    @FunctionalInterface
+    public interface Remapping<V> {
+        V apply(long key, V current);
+    }
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongMap() {
+        this(16, DEFAULT_SEGMENTS);
+    }
+
+    public ConcurrentLongMap(int expectedSize) {
+        this(expectedSize, DEFAULT_SEGMENTS);
+    }
+
+    public ConcurrentLongMap(int expectedSize, int concurrencyLevel) {
+        int segmentCount = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1) << 1);
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        int perSegment = (int) Math.ceil(Math.max(1, expectedSize) / (double) segmentCount / LOAD_FACTOR);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(tableSizeFor(perSegment));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = mix(key);
+        Table table = segmentFor(hash).table;
+        int mask = table.keys.length - 1;
+        int index = (int) hash & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = SLOTS.getAcquire(table.values, index);
+            if (value == null) {
+                return null;
+            }
+            if (table.keys[index] == key) {
+                return value != TOMBSTONE ? (V) value : null;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        requireValue(value);
+        return compute(key, (k, current) -> value, true);
+    }
+
+    public V putIfAbsent(long key, V value) {
+        requireValue(value);
+        Object[] previous = new Object[1];
+        compute(key, (k, current) -> {
+            previous[0] = current;
+            return current != null ? current : value;
+        });
+        return cast(previous[0]);
+    }
+
+    public V remove(long key) {
+        return compute(key, (k, current) -> null, true);
+    }
+
+    public boolean remove(long key, V expected) {
+        boolean[] removed = new boolean[1];
+        compute(key, (k, current) -> {
+            if (current != null && current.equals(expected)) {
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        return removed[0];
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> mapping) {
+        return compute(key, (k, current) -> current != null ? current : mapping.apply(k));
+    }
+
+    public V computeIfPresent(long key, Remapping<V> remapping) {
+        return compute(key, (k, current) -> current != null ? remapping.apply(k, current) : null);
+    }
+
+    /**
+     * Atomically replaces the mapping of {@code key} with the function's result, under the segment lock.
+     * Returns the new value, or null if the key ends up absent.
+     */
+    public V compute(long key, Remapping<V> remapping) {
+        return compute(key, remapping, false);
+    }
+
+    public int size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                segment.table = new Table(Math.max(8, Integer.highestOneBit(segment.table.keys.length >>> 2)));
+                segment.count = 0;
+                segment.tombstones = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Visits every live mapping; weakly consistent, like the iterators of the java.util.concurrent maps.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super V> action) {
+        for (Segment segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                Object value = SLOTS.getAcquire(table.values, i);
+                if (value != null && value != TOMBSTONE) {
+                    action.accept((V) value, table.keys[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Weakly consistent view of the values, in no particular order.
+     */
+    public Iterable<V> values() {
+        return ValueIterator::new;
+    }
+
+    private V compute(long key, Remapping<V> remapping, boolean returnPrevious) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            return cast(segment.compute(key, hash, remapping, returnPrevious));
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    private static long mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(8, Integer.highestOneBit(Math.max(1, capacity - 1) << 1));
+    }
+
+    private static void requireValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("ConcurrentLongMap does not accept null values");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    private static final class Segment extends ReentrantLock {
+        volatile Table table;
+        // Written under the lock, read without it by size()
+        volatile int count;
+        int tombstones;
+
+        Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        <V> Object compute(long key, long hash, Remapping<V> remapping, boolean returnPrevious) {
+            Table current = table;
+            int slot = find(current, key, hash);
+            Object existing = slot >= 0 ? current.values[slot] : null;
+            V previous = existing != null && existing != TOMBSTONE ? (V) existing : null;
+            V updated = remapping.apply(key, previous);
+
+            if (updated == null) {
+                if (previous != null) {
+                    SLOTS.setRelease(current.values, slot, TOMBSTONE);
+                    count--;
+                    tombstones++;
+                }
+            } else if (slot >= 0) {
+                SLOTS.setRelease(current.values, slot, updated);
+                if (previous == null) {
+                    count++;
+                    tombstones--;
+                }
+            } else {
+                insert(key, hash, updated);
+            }
+            return returnPrevious ? previous : updated;
+        }
+
+        // Slot holding the key (live or tombstone), or -1 if the key was never in this table
+        private static int find(Table table, long key, long hash) {
+            int mask = table.keys.length - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = table.values[index];
+                if (value == null) {
+                    return -1;
+                }
+                if (table.keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, long hash, Object value) {
+            Table current = table;
+            if (count + tombstones + 1 > current.keys.length * LOAD_FACTOR) {
+                // Grow only if live entries need it; otherwise just drop the tombstones
+                int capacity = count + 1 > current.keys.length * LOAD_FACTOR / 2
+                        ? current.keys.length << 1
+                        : current.keys.length;
+                current = rehash(current, capacity);
+            }
+            int mask = current.keys.length - 1;
+            int index = (int) hash & mask;
+            while (current.values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            current.keys[index] = key;
+            SLOTS.setRelease(current.values, index, value);
+            count++;
+        }
+
+        // Readers keep using the old table until the new one is published; it is never written again
+        private Table rehash(Table old, int capacity) {
+            Table fresh = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.keys.length; i++) {
+                Object value = old.values[i];
+                if (value == null || value == TOMBSTONE) {
+                    continue;
+                }
+                int index = (int) mix(old.keys[i]) & mask;
+                while (fresh.values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                fresh.keys[index] = old.keys[i];
+                fresh.values[index] = value;
+            }
+            tombstones = 0;
+            table = fresh;
+            return fresh;
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int segmentIndex;
+        private Table table = segments[0].table;
+        private int slot = -1;
+        private V next;
+
+        ValueIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = next;
+            advance();
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (true) {
+                while (++slot < table.keys.length) {
+                    Object value = SLOTS.getAcquire(table.values, slot);
+                    if (value != null && value != TOMBSTONE) {
+                        next = (V) value;
+                        return;
+                    }
+                }
+                if (++segmentIndex == segments.length) {
+                    return;
+                }
+                table = segments[segmentIndex].table;
+                slot = -1;
+            }
+        }
+    }
+}
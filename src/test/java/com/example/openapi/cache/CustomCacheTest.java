@@ -0,0 +1,539 @@
+package com.example.openapi.cache;
+
+import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookJsonCache.EncodedJson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.Cache;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomCacheTest {
+
+    private static CacheSettings maxSize(long maximumSize) {
+        CacheSettings settings = new CacheSettings();
+        settings.setMaximumSize(maximumSize);
+        return settings;
+    }
+
+    @Test
+    void testBoundedCache_NeverExceedsMaximumSize() {
+        // Arrange
+        CustomCache cache = new CustomCache("bounded", maxSize(100));
+
+        // Act
+        for (long i = 0; i < 10_000; i++) {
+            cache.put(i, "value-" + i);
+        }
+
+        // Assert
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.weightedSize());
+    }
+
+    @Test
+    void testBoundedCache_HotEntriesSurviveScan() {
+        // Arrange
+        CustomCache cache = new CustomCache("scan", maxSize(100));
+        for (long i = 0; i < 50; i++) {
+            cache.put(i, "hot-" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (long i = 0; i < 50; i++) {
+                assertNotNull(cache.get(i));
+            }
+        }
+
+        // Act - one pass over keys that are never read again
+        for (long i = 1_000; i < 11_000; i++) {
+            cache.put(i, "scan-" + i);
+        }
+
+        // Assert
+        long hotSurvivors = 0;
+        for (long i = 0; i < 50; i++) {
+            if (cache.get(i) != null) {
+                hotSurvivors++;
+            }
+        }
+        // A plain LRU would keep none of them
+        assertTrue(hotSurvivors >= 45, "Only " + hotSurvivors + " hot entries survived the scan");
+    }
+
+    @Test
+    void testWeightedCache_BoundsEstimatedBytes() {
+        // Arrange
+        CacheSettings settings = new CacheSettings();
+        settings.setMaximumWeight(64 * 1024);
+        CustomCache cache = new CustomCache("weighted", settings);
+
+        // Act
+        for (long i = 0; i < 1_000; i++) {
+            cache.put(i, "x".repeat(1_000));
+        }
+
+        // Assert
+        assertTrue(cache.weightedSize() <= 64 * 1024);
+        assertTrue(cache.size() > 0 && cache.size() < 1_000);
+    }
+
+    @Test
+    void testUnboundedCache_KeepsEverything() {
+        // Arrange
+        CustomCache cache = new CustomCache("unbounded");
+
+        // Act
+        for (long i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+
+        // Assert
+        assertEquals(1_000, cache.size());
+    }
+
+    @Test
+    void testExpireAfterWrite_DropsStaleEntries() throws InterruptedException {
+        // Arrange
+        CacheSettings settings = new CacheSettings();
+        settings.setExpireAfterWrite(Duration.ofMillis(50));
+        CustomCache cache = new CustomCache("ttl", settings);
+        cache.put(1L, "value");
+
+        // Act
+        Thread.sleep(100);
+
+        // Assert
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testRefreshAhead_ReloadsBeforeExpiry() throws InterruptedException {
+        // Arrange - refresh window covers the whole TTL, refresh runs on the calling thread
+        CacheSettings settings = new CacheSettings();
+        settings.setExpireAfterWrite(Duration.ofMillis(200));
+        settings.setRefreshAhead(Duration.ofMillis(150));
+        CustomCache cache = new CustomCache("refresh", settings, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+
+        // Act
+        Thread.sleep(100);
+        Object served = cache.get(1L).get();
+
+        // Assert - the reader got the cached value, the entry was reloaded behind it
+        assertEquals("v1", served);
+        assertEquals(2, loads.get());
+        assertEquals("v2", cache.get(1L).get());
+    }
+
+    @Test
+    void testGetWithLoader_RunsOneLoadForConcurrentCallers() throws Exception {
+        // Arrange
+        CustomCache cache = new CustomCache("singleFlight");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // Act
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get("booksList", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(100);
+                    return "loaded";
+                });
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        for (Future<Object> result : results) {
+            assertEquals("loaded", result.get());
+        }
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testGetWithLoader_FailureReachesWaitersAndIsNotCached() throws Exception {
+        // Arrange
+        CustomCache cache = new CustomCache("failures");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Object> loader = executor.submit(() -> cache.get(1L, () -> {
+            loading.countDown();
+            release.await();
+            throw new IllegalStateException("store unavailable");
+        }));
+        loading.await();
+
+        // Act
+        Future<Object> waiter = executor.submit(() -> cache.get(1L, () -> "should not run"));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Assert
+        Exception loaderError = assertThrows(Exception.class, loader::get);
+        Exception waiterError = assertThrows(Exception.class, waiter::get);
+        assertInstanceOf(Cache.ValueRetrievalException.class, loaderError.getCause());
+        assertInstanceOf(Cache.ValueRetrievalException.class, waiterError.getCause());
+        assertNull(cache.get(1L));
+        assertEquals("retried", cache.get(1L, () -> "retried"));
+        executor.shutdown();
+    }
+
+    @Test
+    void testStatistics_CountHitsMissesLoadsAndEvictions() {
+        // Arrange
+        CustomCache cache = new CustomCache("stats", maxSize(2));
+
+        // Act
+        cache.get(1L, () -> "one");
+        cache.get(1L);
+        cache.get(2L);
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(3L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        for (long i = 10; i < 20; i++) {
+            cache.put(i, "filler");
+        }
+
+        // Assert
+        CacheStatistics.Snapshot stats = cache.getStatistics().snapshot();
+        assertEquals(1, stats.hitCount());
+        assertEquals(3, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(1, stats.loadFailureCount());
+        assertEquals(9, stats.evictionCount());
+        assertEquals(0.25, stats.hitRatio());
+
+        cache.getStatistics().reset();
+        assertEquals(0, cache.getStatistics().snapshot().requestCount());
+    }
+
+    @Test
+    void testOffHeapTier_DemotesEvictedEntriesAndPromotesOnRead() {
+        // Arrange
+        CacheSettings settings = maxSize(10);
+        settings.setOffHeapCapacity(DataSize.ofKilobytes(64));
+        settings.setOffHeapSlabSize(DataSize.ofKilobytes(16));
+        CustomCache cache = new CustomCache("tiered", settings);
+
+        // Act
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, "value-" + i);
+        }
+
+        // Assert
+        assertEquals(10, cache.size());
+        assertEquals(90L, cache.getOffHeapStatistics().get("entries"));
+        assertTrue(cache.getOffHeapStatistics().get("usedBytes") > 0);
+        for (long i = 0; i < 100; i++) {
+            assertEquals("value-" + i, cache.get(i).get());
+        }
+        assertEquals(100, cache.getStatistics().snapshot().hitCount());
+
+        cache.evict(5L);
+        assertNull(cache.get(5L));
+    }
+
+    @Test
+    void testGetWithLoader_ReleasesWaitersWhenLoaderThrowsError() throws Exception {
+        // Arrange
+        CustomCache cache = new CustomCache("failing");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<Object> failing = executor.submit(() -> cache.get(1L, () -> {
+            loading.countDown();
+            release.await();
+            throw new AssertionError("loader broke");
+        }));
+        loading.await();
+        Future<Object> waiting = executor.submit(() -> cache.get(1L, () -> "loaded"));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        ExecutionException loaderFailure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, loaderFailure.getCause());
+        try {
+            assertEquals("loaded", waiting.get(5, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+            assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testLoads_NeverOverwriteALaterPut() throws Exception {
+        // Arrange: writers bump the source and put the new value, the way BookService writes through
+        CacheSettings settings = maxSize(100);
+        settings.setNegativeTtl(Duration.ofMinutes(1));
+        CustomCache cache = new CustomCache("ordered", settings);
+        AtomicLong source = new AtomicLong();
+        Object sourceLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // Act
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                synchronized (sourceLock) {
+                    cache.put(1L, source.incrementAndGet());
+                }
+                if (i % 3 == 0) {
+                    cache.evict(1L);
+                }
+            }
+            running.set(false);
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(executor.submit(() -> {
+                while (running.get()) {
+                    cache.get(1L, source::get);
+                }
+            }));
+        }
+        writer.get();
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        Cache.ValueWrapper cached = cache.get(1L);
+        assertTrue(cached == null || cached.get().equals(source.get()));
+    }
+
+    @Test
+    void testOffHeapTier_EvictDuringPromotionIsNotUndone() throws Exception {
+        // Arrange: deserializing a promoted copy blocks until the evict below has run
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicInteger armed = new AtomicInteger();
+        JdkValueSerializer jdk = new JdkValueSerializer();
+        ValueSerializer serializer = new ValueSerializer() {
+            @Override
+            public byte[] serialize(Object value) {
+                return jdk.serialize(value);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) {
+                if (armed.compareAndSet(1, 0)) {
+                    reading.countDown();
+                    try {
+                        evicted.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return jdk.deserialize(bytes);
+            }
+        };
+        CacheSettings settings = maxSize(1);
+        settings.setOffHeapCapacity(DataSize.ofKilobytes(64));
+        settings.setOffHeapSlabSize(DataSize.ofKilobytes(16));
+        CustomCache cache = new CustomCache("tiered", settings, Runnable::run, serializer);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        long demoted = ((EntryStore) cache.getNativeCache()).containsKey(1L) ? 2L : 1L;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Act
+        armed.set(1);
+        Future<Cache.ValueWrapper> read = executor.submit(() -> cache.get(demoted));
+        reading.await();
+        cache.evict(demoted);
+        evicted.countDown();
+        Cache.ValueWrapper raced = read.get();
+        executor.shutdown();
+
+        // Assert
+        assertNull(raced);
+        assertNull(cache.get(demoted));
+        assertEquals(0L, cache.getOffHeapStatistics().get("entries"));
+    }
+
+    @Test
+    void testSnapshot_RestoresEntriesIntoNewManager(@TempDir Path directory) throws Exception {
+        // Arrange
+        CacheProperties properties = new CacheProperties();
+        properties.getSnapshot().setPath(directory.resolve("cache.bin").toString());
+        CustomCacheManager before = new CustomCacheManager(properties);
+        before.getCache("books").put(1L, "The Lord of the Rings");
+        before.getCache("books").put(2L, "Dune");
+        before.getCache("booksList").put("all", List.of("The Lord of the Rings", "Dune"));
+
+        // Act
+        assertEquals(3, before.writeSnapshot());
+        CustomCacheManager after = new CustomCacheManager(properties);
+        long restored = after.restoreSnapshot();
+
+        // Assert
+        assertEquals(3, restored);
+        assertEquals("Dune", after.getCache("books").get(2L).get());
+        assertEquals(List.of("The Lord of the Rings", "Dune"), after.getCache("booksList").get("all").get());
+    }
+
+    @Test
+    void testSnapshot_SkipsExcludedCachesAndFilteredEntries(@TempDir Path directory) throws Exception {
+        // Arrange
+        CacheProperties properties = new CacheProperties();
+        properties.getSnapshot().setPath(directory.resolve("cache.bin").toString());
+        CacheSettings unsnapshotted = new CacheSettings();
+        unsnapshotted.setSnapshot(false);
+        properties.getSpecs().put("booksList", unsnapshotted);
+        CustomCacheManager before = new CustomCacheManager(properties);
+        before.getCache("books").put(1L, "The Lord of the Rings");
+        before.getCache("books").put(2L, "Dune");
+        before.getCache("booksList").put(0L, List.of("The Lord of the Rings", "Dune"));
+
+        // Act
+        long written = before.writeSnapshot();
+        CustomCacheManager after = new CustomCacheManager(properties);
+        after.setRestoreFilter("books", (key, value) -> !"Dune".equals(value));
+        long restored = after.restoreSnapshot();
+
+        // Assert
+        assertEquals(2, written);
+        assertEquals(1, restored);
+        assertEquals("The Lord of the Rings", after.getCache("books").get(1L).get());
+        assertNull(after.getCache("books").get(2L));
+        assertNull(after.getCache("booksList").get(0L));
+    }
+
+    @Test
+    void testHotKeys_RankMostRequestedKeysFirst() {
+        // Arrange
+        CacheSettings settings = new CacheSettings();
+        settings.setHotKeyCapacity(16);
+        CustomCache cache = new CustomCache("hot", settings);
+
+        // Act - a long tail of one-off ids around three popular ones
+        for (long i = 0; i < 1_000; i++) {
+            cache.get(i + 100);
+            if (i % 2 == 0) {
+                cache.get(1L);
+            }
+            if (i % 3 == 0) {
+                cache.get(2L);
+            }
+            if (i % 5 == 0) {
+                cache.get(3L);
+            }
+        }
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), cache.getHotKeys(3));
+        cache.resetHotKeys();
+        assertTrue(cache.getHotKeys(3).isEmpty());
+    }
+
+    @Test
+    void testNegativeCaching_ServesMissingKeysUntilTtlOrPut() throws Exception {
+        // Arrange
+        CacheSettings settings = new CacheSettings();
+        settings.setNegativeTtl(Duration.ofMillis(50));
+        CustomCache cache = new CustomCache("negative", settings);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> missing = () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        // Act
+        cache.get("ghost", missing);
+        cache.get("ghost", missing);
+        int loadsWhileCached = loads.get();
+        Thread.sleep(60);
+        cache.get("ghost", missing);
+        cache.put("ghost", "found");
+
+        // Assert
+        assertEquals(1, loadsWhileCached);
+        assertEquals(2, loads.get());
+        assertEquals("found", cache.get("ghost", missing));
+        assertEquals(2, cache.getStatistics().snapshot().hitCount());
+    }
+
+    @Test
+    void testLongKeys_StoresIdAndOtherKeys() {
+        // Arrange
+        CacheSettings settings = maxSize(10_000);
+        settings.setLongKeys(true);
+        settings.setExpireAfterWrite(Duration.ofMinutes(1));
+        CustomCache cache = new CustomCache("ids", settings);
+
+        // Act
+        for (long i = 0; i < 1_000; i++) {
+            cache.put(i, "value-" + i);
+        }
+        cache.put("list", "all");
+        cache.evict(999L);
+
+        // Assert
+        assertEquals(1_000, cache.size());
+        assertNull(cache.get(999L));
+        assertEquals("value-998", cache.get(998L).get());
+        assertEquals("all", cache.get("list").get());
+        assertEquals(0, cache.evictExpired());
+    }
+
+    @Test
+    void testJdkValueSerializer_ReadsOnlyAllowedTypes() throws Exception {
+        // Arrange
+        JdkValueSerializer serializer = new JdkValueSerializer();
+        List<Book> books = new ArrayList<>(List.of(new Book(1L, "Dune", "Frank Herbert", 3)));
+        EncodedJson json = new EncodedJson(7, new byte[]{'{', '}'}, new byte[0]);
+        UserDetails user = User.withUsername("reader").password("").roles("USER").build();
+        List<Object> nested = new ArrayList<>();
+        List<Object> innermost = nested;
+        for (int depth = 0; depth < 64; depth++) {
+            List<Object> next = new ArrayList<>();
+            innermost.add(next);
+            innermost = next;
+        }
+
+        // Act
+        byte[] outside = serializer.serialize(URI.create("http://example.com/").toURL());
+        byte[] deep = serializer.serialize(nested);
+
+        // Assert
+        assertEquals(books, serializer.deserialize(serializer.serialize(books)));
+        assertEquals(7, ((EncodedJson) serializer.deserialize(serializer.serialize(json))).version());
+        assertEquals(user, serializer.deserialize(serializer.serialize(user)));
+        assertThrows(SerializationFailedException.class, () -> serializer.deserialize(outside));
+        assertThrows(SerializationFailedException.class, () -> serializer.deserialize(deep));
+    }
+}
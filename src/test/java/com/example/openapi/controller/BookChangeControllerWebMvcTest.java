@@ -0,0 +1,99 @@
+package com.example.openapi.controller;
+
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BookChangeController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class BookChangeControllerWebMvcTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookChangeController controller;
+
+    @MockitoBean
+    private BookService bookService;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testPollChanges_WaitsForNextWrite() throws Exception {
+        // Arrange
+        BookChange change = new BookChange(8, BookChange.Operation.PUT, 4L, new Book(4L, "Neuromancer", "William Gibson"));
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        when(bookService.findChangesSince(7L, 500))
+                .thenReturn(new BookChangeBatch(List.of(), 7, false))
+                .thenReturn(new BookChangeBatch(List.of(change), 8, false));
+        when(bookService.awaitChangesAfter(7L)).thenReturn(signal);
+
+        // Act
+        MvcResult pending = mockMvc.perform(get("/api/books/changes").param("since", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        signal.complete(null);
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").value(8))
+                .andExpect(jsonPath("$.reset").value(false))
+                .andExpect(jsonPath("$.changes[0].operation").value("PUT"))
+                .andExpect(jsonPath("$.changes[0].book.title").value("Neuromancer"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testPollChanges_AnswersResetAtOnce() throws Exception {
+        // Arrange
+        when(bookService.findChangesSince(1L, 20)).thenReturn(new BookChangeBatch(List.of(), 90000, true));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/books/changes").param("since", "1").param("limit", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reset").value(true))
+                .andExpect(jsonPath("$.next").value(90000));
+    }
+
+    @Test
+    void testStreamChanges_ReleasesSubscriberSlotWhenExecutorIsShutDown() {
+        // Arrange
+        controller.stopExecutor();
+
+        try {
+            // Act: fill every subscriber slot with streams the stopped executor refuses
+            for (int i = 0; i < 64; i++) {
+                controller.streamChanges(null, 0L);
+            }
+
+            // Assert: the refused streams gave their slots back, so one more is still admitted
+            assertDoesNotThrow(() -> controller.streamChanges(null, 0L));
+        } finally {
+            controller.startExecutor();
+        }
+    }
+}
@@ -1,21 +1,38 @@
 package com.example.openapi.controller;
 
+import com.example.openapi.cache.CustomCacheManager;
+import com.example.openapi.dto.BulkItemResult;
+import com.example.openapi.dto.BulkResult;
 import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookJsonCache;
 import com.example.openapi.service.BookService;
+import com.example.openapi.service.BookVersionConflictException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -23,8 +40,17 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(BookController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import({BookJsonCache.class, BookControllerWebMvcTest.Caches.class})
 class BookControllerWebMvcTest {
 
+    @TestConfiguration
+    static class Caches {
+        @Bean
+        CustomCacheManager cacheManager() {
+            return new CustomCacheManager();
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -34,6 +60,18 @@ class BookControllerWebMvcTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CustomCacheManager cacheManager;
+
+    @Autowired
+    private BookController bookController;
+
+    // The mocked catalogue version never moves, so encoded bodies must not leak between tests
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.clearAllCaches();
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void testGetAllBooks() throws Exception {
@@ -57,6 +95,113 @@ class BookControllerWebMvcTest {
         verify(bookService, times(1)).getAllBooks();
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetBookPage_ReturnsNextCursorWhenMoreBooksFollow() throws Exception {
+        // Arrange
+        when(bookService.findBooksAfter(1L, 3)).thenReturn(new ArrayList<>(List.of(
+                new Book(2L, "Book 2", "Author 2"),
+                new Book(3L, "Book 3", "Author 3"),
+                new Book(4L, "Book 4", "Author 4"))));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/page").param("cursor", "1").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].id").value(3))
+                .andExpect(jsonPath("$.nextCursor").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testStreamAllBooks_WritesOneBookPerLine() throws Exception {
+        // Arrange
+        List<Book> books = List.of(new Book(1L, "Book 1", "Author 1"), new Book(2L, "Book 2", "Author 2"));
+        when(bookService.iterateBooks()).thenReturn(books);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/books").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(objectMapper.writeValueAsString(books.get(0)) + "\n"
+                + objectMapper.writeValueAsString(books.get(1)) + "\n", body);
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void testStreamAllBooks_FlushesOncePerInterval() throws Exception {
+        // Arrange
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 600; id++) {
+            books.add(new Book(id, "Book " + id, "Author"));
+        }
+        when(bookService.iterateBooks()).thenReturn(books);
+        int[] flushes = new int[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        // Act
+        bookController.streamAllBooks().getBody().writeTo(out);
+
+        // Assert: one flush per full interval of 256; the remainder goes out when the stream closes
+        assertEquals(2, flushes[0]);
+        assertEquals(600, out.toString().lines().count());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testSearchBooks_CapsLimit() throws Exception {
+        // Arrange
+        when(bookService.searchBooks("dune", 100)).thenReturn(List.of(new Book(2L, "Dune", "Frank Herbert")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/search").param("q", "dune").param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Dune"));
+
+        verify(bookService, times(1)).searchBooks("dune", 100);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetBooksByAuthor() throws Exception {
+        // Arrange
+        when(bookService.findBooksByAuthor("Author 1")).thenReturn(List.of(new Book(1L, "Book 1", "Author 1")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books").param("author", "Author 1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1));
+
+        verify(bookService, times(1)).findBooksByAuthor("Author 1");
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetBooksByTitlePrefix() throws Exception {
+        // Arrange
+        when(bookService.findBooksByTitlePrefix("bo")).thenReturn(List.of(new Book(2L, "Book 2", "Author 2")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books").param("titlePrefix", "bo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Book 2"));
+
+        verify(bookService, times(1)).findBooksByTitlePrefix("bo");
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void testGetBookById() throws Exception {
@@ -154,5 +299,136 @@ class BookControllerWebMvcTest {
 
         verify(bookService, times(1)).deleteBook(1L);
     }
-}
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testBulkCreate_AcceptsArrayAndNdjson() throws Exception {
+        // Arrange
+        BulkResult result = new BulkResult();
+        result.add(0, 4L, BulkItemResult.Status.CREATED, null);
+        result.add(1, 5L, BulkItemResult.Status.CREATED, null);
+        when(bookService.createBooks(anyList())).thenReturn(result);
+        List<Book> books = List.of(new Book(null, "Solaris", "Stanislaw Lem"), new Book(null, "Ubik", "Philip K. Dick"));
+        String ndjson = objectMapper.writeValueAsString(books.get(0)) + "\n" + objectMapper.writeValueAsString(books.get(1)) + "\n";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.items[1].id").value(5))
+                .andExpect(jsonPath("$.items[1].status").value("CREATED"));
+        mockMvc.perform(post("/api/books/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk());
+
+        verify(bookService, times(2)).createBooks(eq(books));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testBulkDelete_RejectsMalformedBody() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2,"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).deleteBooks(anyList());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetBookById_NotModifiedWhileVersionUnchanged() throws Exception {
+        // Arrange
+        when(bookService.findBookById(1L)).thenReturn(new Book(1L, "Test Book", "Test Author", 3));
+        String etag = mockMvc.perform(get("/api/books/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        when(bookService.findBookById(1L)).thenReturn(new Book(1L, "Test Book 2", "Test Author", 4));
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetAllBooks_NotModifiedSkipsLoadingTheList() throws Exception {
+        // Arrange
+        when(bookService.getCatalogVersion()).thenReturn(7L);
+        when(bookService.getAllBooks()).thenReturn(List.of(new Book(1L, "Book 1", "Author 1")));
+        String etag = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(bookService, times(1)).getAllBooks();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testGetAllBooks_ServesGzippedBytesWhenAccepted() throws Exception {
+        // Arrange
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            books.add(new Book(id, "Book " + id, "Author " + id));
+        }
+        when(bookService.getAllBooks()).thenReturn(books);
+
+        // Act
+        byte[] gzipped = mockMvc.perform(get("/api/books").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.length()").value(100));
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(books, List.of(objectMapper.readValue(in.readAllBytes(), Book[].class)));
+        }
+        verify(bookService, times(1)).getAllBooks();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testUpdateBook_IfMatchConflictReturnsPreconditionFailed() throws Exception {
+        // Arrange
+        when(bookService.findBookById(1L)).thenReturn(new Book(1L, "Test Book", "Test Author", 3));
+        String etag = mockMvc.perform(get("/api/books/1"))
+                .andReturn().getResponse().getHeader("ETag");
+        when(bookService.updateBook(eq(1L), any(Book.class), any())).thenAnswer(invocation -> {
+            LongPredicate expected = invocation.getArgument(2);
+            if (!expected.test(4)) {
+                throw new BookVersionConflictException(1L, 4);
+            }
+            return new Book(1L, "Updated Book", "Updated Author", 5);
+        });
+        Book update = new Book(null, "Updated Book", "Updated Author");
+
+        // Act & Assert
+        mockMvc.perform(put("/api/books/1")
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.currentVersion").value(4));
+        mockMvc.perform(put("/api/books/1")
+                        .header("If-Match", etag.replace("-b3", "-b4"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag.replace("-b3", "-b5")));
+    }
+}
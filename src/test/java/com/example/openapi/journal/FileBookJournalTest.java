@@ -0,0 +1,204 @@
+package com.example.openapi.journal;
+
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.entity.Book;
+import com.example.openapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBookJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecover_ReplaysLogAfterRestart() throws Exception {
+        // Arrange
+        FileBookJournal journal = open();
+        BookService first = new BookService(journal);
+        Book created = first.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        first.updateBook(2L, new Book(null, "Dune Messiah", "Frank Herbert"));
+        first.deleteBook(1L);
+        journal.destroy();
+
+        // Act
+        BookService restarted = new BookService(open());
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 4L), restarted.getAllBooks().stream().map(Book::getId).toList());
+        assertEquals("Dune Messiah", restarted.findBookById(2L).getTitle());
+        assertEquals(2, restarted.findBookById(2L).getVersion());
+        assertEquals(created, restarted.findBookById(4L));
+        assertEquals(List.of(4L), restarted.searchBooks("gibson", 10).stream().map(Book::getId).toList());
+        assertEquals(5L, restarted.createBook(new Book(null, "Count Zero", "William Gibson")).getId());
+    }
+
+    @Test
+    void testChangeFeed_ResetsReaderFromBeforeRestart() throws Exception {
+        // Arrange
+        FileBookJournal journal = open();
+        BookService first = new BookService(journal);
+        first.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        journal.destroy();
+        BookService restarted = new BookService(open());
+        long head = restarted.getLatestChangeSequence();
+
+        // Act
+        BookChangeBatch stale = restarted.findChangesSince(0, 10);
+        CompletableFuture<Void> signal = restarted.awaitChangesAfter(0);
+        Book created = restarted.createBook(new Book(null, "Count Zero", "William Gibson"));
+        BookChangeBatch resumed = restarted.findChangesSince(stale.getNext(), 10);
+
+        // Assert
+        assertTrue(head > 0);
+        assertTrue(stale.isReset());
+        assertEquals(head, stale.getNext());
+        assertTrue(signal.isDone());
+        assertFalse(resumed.isReset());
+        assertEquals(List.of(created.getId()), resumed.getChanges().stream().map(BookChange::getBookId).toList());
+    }
+
+    @Test
+    void testSnapshot_CompactsLogAndKeepsLaterWrites() throws Exception {
+        // Arrange
+        FileBookJournal journal = new FileBookJournal(directory, 64, 256);
+        BookService first = new BookService(journal);
+        for (int i = 0; i < 20; i++) {
+            first.createBook(new Book(null, "Book " + i, "Author"));
+        }
+        int segmentsBefore = segmentCount();
+
+        // Act
+        first.writeSnapshot();
+        first.deleteBook(5L);
+        first.updateBook(6L, new Book(null, "Renamed", "Author"));
+        journal.destroy();
+        BookService restarted = new BookService(open());
+
+        // Assert
+        assertTrue(segmentCount() < segmentsBefore);
+        assertEquals(22, restarted.getAllBooks().size());
+        assertNull(restarted.findBookById(5L));
+        assertEquals("Renamed", restarted.findBookById(6L).getTitle());
+        assertEquals(24L, restarted.createBook(new Book(null, "Next", "Author")).getId());
+    }
+
+    @Test
+    void testRecover_IgnoresTornTailAndGroupCommitsConcurrentWrites() throws Exception {
+        // Arrange
+        FileBookJournal journal = open();
+        journal.recover();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            writes.add(journal.submitPut(new Book(id, "Title " + id, "Author")));
+        }
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        journal.destroy();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(p -> p.toString().endsWith(".wal")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        // Act
+        FileBookJournal reopened = open();
+        BookJournal.RecoveredCatalog catalog = reopened.recover();
+        reopened.appendDelete(1L);
+        reopened.destroy();
+        FileBookJournal third = open();
+        BookJournal.RecoveredCatalog afterDelete = third.recover();
+        third.destroy();
+
+        // Assert
+        assertEquals(1_000, catalog.books().size());
+        assertEquals(1_000L, catalog.sequence());
+        assertEquals(999, afterDelete.books().size());
+    }
+
+    @Test
+    void testRecover_FailsOnCorruptionBeforeTheLastSegment() throws Exception {
+        // Arrange
+        FileBookJournal journal = new FileBookJournal(directory, 64, 256);
+        journal.recover();
+        for (long id = 1; id <= 20; id++) {
+            journal.appendPut(new Book(id, "Title " + id, "Author"));
+        }
+        journal.destroy();
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.filter(p -> p.toString().endsWith(".wal")).sorted().findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[bytes.length / 2] ^= 0x5a;
+        Files.write(first, bytes);
+
+        // Act
+        IOException failure = assertThrows(IOException.class, () -> new FileBookJournal(directory, 64, 256).recover());
+
+        // Assert
+        assertTrue(segmentCount() > 1);
+        assertTrue(failure.getMessage().contains(first.getFileName().toString()));
+    }
+
+    @Test
+    void testDestroy_CompletesOrRefusesEverySubmission() throws Exception {
+        // Arrange
+        FileBookJournal journal = open();
+        journal.recover();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<CompletableFuture<Void>>>> submitters = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(4);
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            submitters.add(executor.submit(() -> {
+                List<CompletableFuture<Void>> submitted = new ArrayList<>();
+                started.countDown();
+                try {
+                    for (long id = 1; ; id++) {
+                        submitted.add(journal.submitPut(new Book(id, "Title " + id, "Author")));
+                    }
+                } catch (IllegalStateException closed) {
+                    return submitted;
+                }
+            }));
+        }
+        started.await();
+        journal.destroy();
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+        for (Future<List<CompletableFuture<Void>>> submitter : submitters) {
+            all.addAll(submitter.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThrows(IllegalStateException.class, () -> journal.submitDelete(1L));
+        assertTrue(all.stream().allMatch(CompletableFuture::isDone));
+    }
+
+    private FileBookJournal open() {
+        return new FileBookJournal(directory, 1024, 1024 * 1024);
+    }
+
+    private int segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(p -> p.toString().endsWith(".wal")).count();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.openapi.security;
+
+import com.example.openapi.entity.Role;
+import com.example.openapi.repository.RoleRepository;
+import com.example.openapi.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends a burst of authenticated requests and counts the statements Hibernate prepares for them:
+ * a user and a role query per request when authorities come from the database, none when they come from
+ * the token.
+ */
+class JwtAuthoritiesLoadTest {
+
+    private static final int REQUESTS = 500;
+
+    abstract static class Burst {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtUtil jwtUtil;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private RoleRepository roleRepository;
+
+        long statementsForBurst() throws Exception {
+            if (userRepository.findByUsername("loadtest").isEmpty()) {
+                Role role = roleRepository.findByName("ROLE_USER")
+                        .orElseGet(() -> roleRepository.save(Role.builder().name("ROLE_USER").build()));
+                com.example.openapi.entity.User user = new com.example.openapi.entity.User();
+                user.setUsername("loadtest");
+                user.setPassword("unused");
+                user.getRoles().add(role);
+                userRepository.save(user);
+            }
+            String token = jwtUtil.generateToken(User.withUsername("loadtest").password("").roles("USER").build());
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            // The change feed has no per-user rate limit and answers at once for an old position
+            for (int i = 0; i < REQUESTS; i++) {
+                mockMvc.perform(get("/api/books/changes").param("since", "0").param("limit", "1")
+                                .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk());
+            }
+            return statistics.getPrepareStatementCount();
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @TestPropertySource(properties = {
+            "jwt.authorities-source=claims",
+            "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+    class ClaimsSource extends Burst {
+
+        @Test
+        void testBurst_RunsNoUserQueries() throws Exception {
+            assertEquals(0, statementsForBurst());
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @TestPropertySource(properties = {
+            "jwt.authorities-source=database",
+            "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+    class DatabaseSource extends Burst {
+
+        @Test
+        void testBurst_RunsUserQueriesPerRequest() throws Exception {
+            assertEquals(2L * REQUESTS, statementsForBurst());
+        }
+    }
+}
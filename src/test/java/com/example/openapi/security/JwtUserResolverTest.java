@@ -0,0 +1,55 @@
+package com.example.openapi.security;
+
+import com.example.openapi.cache.CustomCacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtUserResolverTest {
+
+    private final JwtPrincipal principal =
+            new JwtPrincipal("alice", List.of("ROLE_USER", "ROLE_ADMIN"), Instant.now().plusSeconds(60));
+
+    @Test
+    void testClaimsSource_BuildsUserWithoutLookup() {
+        // Arrange
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        JwtUserResolver resolver = new JwtUserResolver(userDetailsService, new CustomCacheManager(), "claims");
+
+        // Act
+        UserDetails user = resolver.resolve(principal);
+
+        // Assert
+        assertEquals("alice", user.getUsername());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"),
+                user.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().toList());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testCachedSource_LooksUpOnceAndDropsPassword() {
+        // Arrange
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("{bcrypt}hash").roles("USER").build());
+        JwtUserResolver resolver = new JwtUserResolver(userDetailsService, new CustomCacheManager(), "cached");
+
+        // Act
+        UserDetails first = resolver.resolve(principal);
+        UserDetails second = resolver.resolve(principal);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals("", first.getPassword());
+        assertEquals("ROLE_USER", first.getAuthorities().iterator().next().getAuthority());
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.openapi.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "supersecretkey_supersecretkey_supersecretkey";
+
+    @Test
+    void testVerify_ReturnsSubjectRolesAndExpiry() {
+        // Arrange
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        String token = jwtUtil.generateToken(User.withUsername("alice").password("x").roles("USER", "ADMIN").build());
+
+        // Act
+        JwtPrincipal principal = jwtUtil.verify(token);
+
+        // Assert
+        assertNotNull(principal);
+        assertEquals("alice", principal.subject());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"), principal.roles().stream().sorted().toList());
+        assertTrue(principal.expiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void testVerify_RejectsTamperedExpiredAndForeignTokens() {
+        // Arrange
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        String token = jwtUtil.generateToken(User.withUsername("alice").password("x").roles("USER").build());
+        String expired = new JwtUtil(SECRET, -1_000)
+                .generateToken(User.withUsername("alice").password("x").roles("USER").build());
+        String foreign = new JwtUtil(SECRET.replace('s', 'z'), 60_000)
+                .generateToken(User.withUsername("alice").password("x").roles("USER").build());
+
+        // Act
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Assert
+        assertNull(jwtUtil.verify(tampered));
+        assertNull(jwtUtil.verify(expired));
+        assertNull(jwtUtil.verify(foreign));
+        assertNull(jwtUtil.verify("not-a-token"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.openapi.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void testSubmit_RefusesWorkBeyondQueueAndRecordsMetrics() throws Exception {
+        // Arrange
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        // Act
+        CompletableFuture<String> first = executor.submit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        });
+        running.await();
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+        Map<String, Object> busy = executor.metrics();
+        PasswordHashingBusyException refused = assertThrows(PasswordHashingBusyException.class,
+                () -> executor.submit(() -> "refused"));
+        release.countDown();
+
+        // Assert
+        assertEquals("first", first.get());
+        assertEquals("queued", queued.get());
+        assertEquals(2, refused.getRetryAfterSeconds());
+        assertEquals(1, busy.get("queueDepth"));
+        Map<String, Object> metrics = executor.metrics();
+        assertEquals(2L, metrics.get("completed"));
+        assertEquals(1L, metrics.get("rejected"));
+        assertEquals(0, metrics.get("queueDepth"));
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
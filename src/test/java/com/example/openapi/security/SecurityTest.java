@@ -5,11 +5,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -19,6 +21,9 @@ class SecurityTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @Test
     void testUnauthenticatedUserCannotAccessBooks() throws Exception {
         // JWT filter may return 401 Unauthorized or 403 Forbidden when no token is present
@@ -91,5 +96,37 @@ class SecurityTest {
         mockMvc.perform(delete("/api/books/1"))
                 .andExpect(status().isNoContent());
     }
-}
 
+    @Test
+    void testLogout_RevokesToken() throws Exception {
+        // Arrange
+        String token = jwtUtil.generateToken(User.withUsername("reader").password("").roles("USER").build());
+        mockMvc.perform(get("/api/books/changes").param("since", "0").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Act
+        mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        // Assert
+        mockMvc.perform(get("/api/books/changes").param("since", "0").header("Authorization", "Bearer " + token))
+                .andExpect(result -> {
+                    int status = result.getResponse().getStatus();
+                    assertTrue(status == 401 || status == 403, "Expected 401 or 403, but got " + status);
+                });
+    }
+
+    @Test
+    void testLogin_ChecksPasswordOffTheRequestThread() throws Exception {
+        // Act
+        var pending = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"nobody\",\"password\":\"wrong\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.openapi.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRevoke_SurvivesRestart() {
+        // Arrange
+        String file = directory.resolve("revoked.bin").toString();
+        TokenRevocationList revocations = new TokenRevocationList(1_000, true, file);
+        TokenDigest revoked = TokenDigest.of("revoked-token");
+        TokenDigest kept = TokenDigest.of("kept-token");
+
+        // Act
+        revocations.revoke(revoked, Instant.now().plusSeconds(3_600));
+        TokenRevocationList reloaded = new TokenRevocationList(1_000, true, file);
+
+        // Assert
+        assertTrue(revocations.isRevoked(revoked));
+        assertFalse(revocations.isRevoked(kept));
+        assertTrue(reloaded.isRevoked(revoked));
+        assertFalse(reloaded.isRevoked(kept));
+        assertEquals(1, reloaded.size());
+    }
+
+    @Test
+    void testPrune_DropsRevocationsOfExpiredTokens() throws Exception {
+        // Arrange
+        String file = directory.resolve("revoked.bin").toString();
+        TokenRevocationList revocations = new TokenRevocationList(1_000, true, file);
+        TokenDigest expiring = TokenDigest.of("expiring-token");
+        TokenDigest lasting = TokenDigest.of("lasting-token");
+        revocations.revoke(expiring, Instant.now().plusMillis(50));
+        revocations.revoke(lasting, Instant.now().plusSeconds(3_600));
+        Thread.sleep(100);
+
+        // Act
+        int pruned = revocations.prune();
+        TokenRevocationList reloaded = new TokenRevocationList(1_000, true, file);
+
+        // Assert
+        assertEquals(1, pruned);
+        assertFalse(revocations.isRevoked(expiring));
+        assertTrue(revocations.isRevoked(lasting));
+        assertEquals(1, reloaded.size());
+        assertTrue(reloaded.isRevoked(lasting));
+    }
+}
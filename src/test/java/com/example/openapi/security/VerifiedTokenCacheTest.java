@@ -0,0 +1,71 @@
+package com.example.openapi.security;
+
+import com.example.openapi.cache.CacheStatistics;
+import com.example.openapi.cache.CustomCache;
+import com.example.openapi.cache.CustomCacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "supersecretkey_supersecretkey_supersecretkey";
+
+    @Test
+    void testVerify_VerifiesRepeatTokenOnceAndCountsHits() {
+        // Arrange
+        AtomicInteger verifications = new AtomicInteger();
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000) {
+            @Override
+            public JwtPrincipal verify(String token) {
+                verifications.incrementAndGet();
+                return super.verify(token);
+            }
+        };
+        CustomCacheManager cacheManager = new CustomCacheManager();
+        VerifiedTokenCache verifiedTokens = new VerifiedTokenCache(jwtUtil, cacheManager);
+        String token = jwtUtil.generateToken(User.withUsername("alice").password("x").roles("USER").build());
+
+        // Act
+        JwtPrincipal first = verifiedTokens.verify(token);
+        JwtPrincipal second = verifiedTokens.verify(token);
+        JwtPrincipal forged = verifiedTokens.verify(token + "x");
+        verifiedTokens.verify(token + "x");
+
+        // Assert
+        assertEquals("alice", first.subject());
+        assertSame(first, second);
+        assertNull(forged);
+        assertEquals(3, verifications.get());
+        CacheStatistics.Snapshot stats = ((CustomCache) cacheManager.getCache(VerifiedTokenCache.CACHE))
+                .getStatistics().snapshot();
+        assertEquals(1, stats.hitCount());
+        assertEquals(3, stats.missCount());
+    }
+
+    @Test
+    void testVerify_DropsTokenPastItsExpiry() {
+        // Arrange
+        JwtPrincipal expired = new JwtPrincipal("alice", List.of("ROLE_USER"), Instant.now().minusSeconds(1));
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000) {
+            @Override
+            public JwtPrincipal verify(String token) {
+                return expired;
+            }
+        };
+        CustomCacheManager cacheManager = new CustomCacheManager();
+        VerifiedTokenCache verifiedTokens = new VerifiedTokenCache(jwtUtil, cacheManager);
+
+        // Act
+        JwtPrincipal principal = verifiedTokens.verify("token");
+
+        // Assert
+        assertNull(principal);
+        assertEquals(0, ((CustomCache) cacheManager.getCache(VerifiedTokenCache.CACHE)).size());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.openapi.service;
+
+import com.example.openapi.entity.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private static final String[] WORDS = {"dune", "dust", "duke", "sand", "worm", "spice", "house", "desert"};
+
+    @Test
+    void testSearch_EarlyTerminationMatchesFullRanking() {
+        // Arrange
+        BookSearchIndex index = new BookSearchIndex();
+        Random random = new Random(7);
+        for (long id = 1; id <= 2_000; id++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            index.replace(null, new Book(id, title, WORDS[random.nextInt(WORDS.length)]));
+        }
+
+        for (String query : List.of("dune", "du", "sand worm", "house d", "spice spice")) {
+            // Act
+            List<BookSearchIndex.Hit> all = index.search(query, Integer.MAX_VALUE);
+            List<BookSearchIndex.Hit> top = index.search(query, 10);
+
+            // Assert
+            assertFalse(all.isEmpty(), query);
+            assertEquals(all.subList(0, 10), top, query);
+        }
+    }
+
+    @Test
+    void testTokenize_SplitsOnNonAlphanumerics() {
+        // Act
+        List<String> tokens = BookSearchIndex.tokenize("The Lord of the Rings: Part-2");
+
+        // Assert
+        assertEquals(List.of("the", "lord", "of", "the", "rings", "part", "2"), tokens);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.openapi.service;
+
+import com.example.openapi.cache.CustomCacheManager;
+import com.example.openapi.config.BookJournalConfig;
+import com.example.openapi.config.CacheConfig;
+import com.example.openapi.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {BookService.class, CacheConfig.class, BookJournalConfig.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class BookServiceCacheTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomCacheManager cacheManager;
+
+    private Cache booksCache;
+
+    @BeforeEach
+    void setUp() {
+        booksCache = cacheManager.getCache("books");
+    }
+
+    @Test
+    void testUpdateBook_KeepsUnrelatedEntriesCached() {
+        // Arrange
+        Book lordOfTheRings = bookService.findBookById(1L);
+        bookService.findBookById(2L);
+
+        // Act
+        bookService.updateBook(2L, new Book(null, "Dune Messiah", "Frank Herbert"));
+
+        // Assert
+        assertSame(lordOfTheRings, booksCache.get(1L).get());
+        assertEquals("Dune Messiah", ((Book) booksCache.get(2L).get()).getTitle());
+        assertEquals("Dune Messiah", bookService.findBookById(2L).getTitle());
+    }
+
+    @Test
+    void testCreateAndDeleteBook_KeepUnrelatedEntriesCached() {
+        // Arrange
+        bookService.findBookById(1L);
+        bookService.findBookById(3L);
+
+        // Act
+        Book created = bookService.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        bookService.deleteBook(3L);
+
+        // Assert
+        assertNotNull(booksCache.get(1L));
+        assertSame(created, booksCache.get(created.getId()).get());
+        assertNull(booksCache.get(3L));
+        assertNull(bookService.findBookById(3L));
+    }
+
+    @Test
+    void testGetAllBooks_ServesNewSnapshotAfterWrite() {
+        // Arrange
+        List<Book> before = bookService.getAllBooks();
+        assertSame(before, bookService.getAllBooks());
+
+        // Act
+        bookService.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        List<Book> after = bookService.getAllBooks();
+
+        // Assert
+        assertNotSame(before, after);
+        assertEquals(before.size() + 1, after.size());
+        assertTrue(after.stream().anyMatch(b -> b.getTitle().equals("Neuromancer")));
+    }
+
+    @Test
+    void testFindMissingBook_IsCachedUntilCreated() {
+        // Arrange
+        assertNull(bookService.findBookById(4L));
+
+        // Act
+        Cache.ValueWrapper negative = booksCache.get(4L);
+        Book created = bookService.createBook(new Book(null, "Neuromancer", "William Gibson"));
+
+        // Assert
+        assertNotNull(negative);
+        assertNull(negative.get());
+        assertEquals(4L, created.getId());
+        assertSame(created, bookService.findBookById(4L));
+    }
+
+    @Test
+    void testBulkWrites_UpdateCachedEntriesPerId() {
+        // Arrange
+        Book lordOfTheRings = bookService.findBookById(1L);
+        bookService.findBookById(2L);
+        bookService.findBookById(3L);
+
+        // Act
+        bookService.updateBooks(List.of(new Book(2L, "Dune Messiah", "Frank Herbert")));
+        bookService.deleteBooks(List.of(3L));
+
+        // Assert
+        assertSame(lordOfTheRings, booksCache.get(1L).get());
+        assertEquals("Dune Messiah", ((Book) booksCache.get(2L).get()).getTitle());
+        assertNull(booksCache.get(3L));
+        assertNull(bookService.findBookById(3L));
+    }
+
+    @Test
+    void testRefreshBook_RecachesStoredBook() {
+        // Arrange
+        bookService.updateBook(2L, new Book(null, "Dune Messiah", "Frank Herbert"));
+        booksCache.evict(2L);
+
+        // Act
+        Book refreshed = bookService.refreshBook(2L);
+        Book missing = bookService.refreshBook(99L);
+
+        // Assert
+        assertSame(refreshed, booksCache.get(2L).get());
+        assertEquals(2, refreshed.getVersion());
+        assertNull(missing);
+        assertNull(booksCache.get(99L));
+    }
+
+    @Test
+    void testConcurrentUpdates_LeaveLatestVersionCached() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+
+        // Act
+        try {
+            for (int t = 0; t < 4; t++) {
+                int writer = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        bookService.updateBook(2L, new Book(null, "Dune " + writer + "-" + i, "Frank Herbert"));
+                    }
+                }));
+            }
+            for (Future<?> future : writers) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        Book cached = (Book) booksCache.get(2L).get();
+        assertEquals(801, cached.getVersion());
+        assertEquals(cached, bookService.findBookById(2L));
+    }
+}
@@ -1,10 +1,33 @@
 package com.example.openapi.service;
 
+import com.example.openapi.cache.CacheProperties;
+import com.example.openapi.cache.CustomCacheManager;
+import com.example.openapi.dto.BookChange;
+import com.example.openapi.dto.BookChangeBatch;
+import com.example.openapi.dto.BulkItemResult;
+import com.example.openapi.dto.BulkResult;
 import com.example.openapi.entity.Book;
+import com.example.openapi.journal.NoOpBookJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -160,5 +183,337 @@ class BookServiceUnitTest {
         bookService.deleteBook(id);
         assertNull(bookService.findBookById(id));
     }
-}
 
+    @Test
+    void testIndexes_FollowCreateUpdateAndDelete() {
+        // Arrange
+        Book messiah = bookService.createBook(new Book(null, "Dune Messiah", "Frank Herbert"));
+
+        // Act
+        bookService.updateBook(3L, new Book(null, "Animal Farm", "Frank Herbert"));
+        bookService.deleteBook(2L);
+
+        // Assert
+        assertEquals(List.of(3L, messiah.getId()),
+                bookService.findBooksByAuthor("Frank Herbert").stream().map(Book::getId).toList());
+        assertTrue(bookService.findBooksByAuthor("George Orwell").isEmpty());
+        assertEquals(List.of("Dune Messiah"),
+                bookService.findBooksByTitlePrefix("dUNE").stream().map(Book::getTitle).toList());
+        assertTrue(bookService.findBooksByTitlePrefix("1984").isEmpty());
+        assertEquals(List.of("Animal Farm", "Dune Messiah"),
+                bookService.findBooksByTitleRange("a", "e").stream().map(Book::getTitle).toList());
+        assertEquals(2, bookService.countBooksByAuthor().get("Frank Herbert"));
+    }
+
+    @Test
+    void testIndexes_NeverMissBookDuringUpdates() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        int misses = 0;
+
+        // Act
+        Future<?> writer = executor.submit(() -> {
+            try {
+                for (int i = 0; i < 5_000; i++) {
+                    bookService.updateBook(2L, new Book(null, "Dune", "Frank Herbert"));
+                }
+            } finally {
+                writing.set(false);
+            }
+        });
+        try {
+            while (writing.get()) {
+                if (bookService.findBooksAfter(null, 10).size() != 3
+                        || bookService.findBooksByTitlePrefix("dune").isEmpty()
+                        || bookService.findBooksByAuthor("Frank Herbert").isEmpty()
+                        || bookService.searchBooks("dune herbert", 10).isEmpty()) {
+                    misses++;
+                }
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertEquals(0, misses);
+        assertEquals(5_001, bookService.findBookById(2L).getVersion());
+    }
+
+    @Test
+    void testCountBooks_FollowsWrites() {
+        // Act
+        bookService.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        bookService.deleteBook(1L);
+        bookService.deleteBook(99L);
+
+        // Assert
+        assertEquals(3, bookService.countBooks());
+        assertEquals(bookService.getAllBooks().size(), bookService.countBooks());
+    }
+
+    @Test
+    void testFindBooksAfter_PagesInIdOrder() {
+        // Arrange
+        bookService.createBook(new Book(null, "Book 4", "Author 4"));
+        bookService.deleteBook(2L);
+
+        // Act
+        List<Book> firstPage = bookService.findBooksAfter(null, 2);
+        List<Book> secondPage = bookService.findBooksAfter(firstPage.get(1).getId(), 2);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), firstPage.stream().map(Book::getId).toList());
+        assertEquals(List.of(4L), secondPage.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testSearchBooks_RanksTitleMatchesAndFollowsWrites() {
+        // Arrange
+        Book messiah = bookService.createBook(new Book(null, "Dune Messiah", "Frank Herbert"));
+        Book biography = bookService.createBook(new Book(null, "Dreamer of Dune", "Brian Herbert"));
+        bookService.createBook(new Book(null, "The Road", "Cormac McCarthy"));
+
+        // Act
+        List<Book> herbert = bookService.searchBooks("herbert dune", 10);
+        List<Book> prefix = bookService.searchBooks("MESS", 10);
+        bookService.updateBook(messiah.getId(), new Book(null, "Children of Dune", "Frank Herbert"));
+        bookService.deleteBook(biography.getId());
+
+        // Assert
+        assertEquals(3, herbert.size());
+        assertTrue(herbert.stream().noneMatch(b -> b.getTitle().equals("The Road")));
+        assertEquals(List.of(messiah.getId()), prefix.stream().map(Book::getId).toList());
+        assertTrue(bookService.searchBooks("messiah", 10).isEmpty());
+        assertEquals(List.of("Children of Dune"),
+                bookService.searchBooks("children", 10).stream().map(Book::getTitle).toList());
+        assertEquals(2, bookService.searchBooks("dune", 10).size());
+        assertEquals(1, bookService.searchBooks("dune", 1).size());
+    }
+
+    @Test
+    void testBulkWrites_ReportEachItemAndBumpVersionOnce() {
+        // Arrange
+        long version = bookService.getCatalogVersion();
+
+        // Act
+        BulkResult created = bookService.createBooks(Arrays.asList(
+                new Book(null, "Solaris", "Stanislaw Lem"), null, new Book(null, "Ubik", "Philip K. Dick")));
+        BulkResult updated = bookService.updateBooks(List.of(
+                new Book(4L, "Solaris (1961)", "Stanislaw Lem"), new Book(999L, "Ghost", "Nobody")));
+        BulkResult deleted = bookService.deleteBooks(List.of(5L, 5L));
+
+        // Assert
+        assertEquals(2, created.getSucceeded());
+        assertEquals(BulkItemResult.Status.INVALID, created.getItems().get(1).getStatus());
+        assertEquals(List.of(4L, 5L), List.of(created.getItems().get(0).getId(), created.getItems().get(2).getId()));
+        assertEquals(BulkItemResult.Status.NOT_FOUND, updated.getItems().get(1).getStatus());
+        assertEquals("Solaris (1961)", bookService.findBookById(4L).getTitle());
+        assertEquals(List.of(BulkItemResult.Status.DELETED, BulkItemResult.Status.NOT_FOUND),
+                deleted.getItems().stream().map(BulkItemResult::getStatus).toList());
+        assertNull(bookService.findBookById(5L));
+        assertEquals(version + 3, bookService.getCatalogVersion());
+        assertEquals(List.of(4L), bookService.searchBooks("solaris", 10).stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testBulkWrites_BumpVersionForItemsAppliedBeforeAFailure() {
+        // Arrange: the journal refuses the second record of the batch
+        AtomicInteger submitted = new AtomicInteger();
+        BookService failing = new BookService(new NoOpBookJournal() {
+            @Override
+            public CompletableFuture<Void> submitPut(Book book) {
+                if (submitted.incrementAndGet() == 2) {
+                    throw new UncheckedIOException(new IOException("disk full"));
+                }
+                return super.submitPut(book);
+            }
+        });
+        long version = failing.getCatalogVersion();
+
+        // Act
+        assertThrows(UncheckedIOException.class, () -> failing.createBooks(List.of(
+                new Book(null, "Neuromancer", "William Gibson"),
+                new Book(null, "Count Zero", "William Gibson"))));
+
+        // Assert
+        assertEquals(version + 1, failing.getCatalogVersion());
+        assertEquals(4, failing.getAllBooks().size());
+        assertEquals(List.of("Neuromancer"), failing.findBooksByAuthor("William Gibson").stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void testConditionalUpdate_OnlyOneOfConcurrentWritersWins() throws Exception {
+        // Arrange
+        long version = bookService.findBookById(2L).getVersion();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> writers = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < 8; i++) {
+                Book update = new Book(null, "Dune " + i, "Frank Herbert");
+                writers.add(executor.submit(() -> {
+                    try {
+                        bookService.updateBook(2L, update, v -> v == version);
+                        return true;
+                    } catch (BookVersionConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            int winners = 0;
+            for (Future<Boolean> writer : writers) {
+                winners += writer.get() ? 1 : 0;
+            }
+
+            // Assert
+            assertEquals(1, winners);
+            assertEquals(version + 1, bookService.findBookById(2L).getVersion());
+            assertNull(bookService.updateBook(999L, new Book(null, "Ghost", "Nobody"), v -> true));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCacheSnapshot_DropsBooksThatNoLongerMatchTheStore(@TempDir Path directory) throws Exception {
+        // Arrange
+        CacheProperties properties = new CacheProperties();
+        properties.getSnapshot().setPath(directory.resolve("cache.bin").toString());
+        CustomCacheManager before = new CustomCacheManager(properties);
+        before.getCache("books").put(1L, bookService.findBookById(1L));
+        before.getCache("books").put(2L, new Book(2L, "Dune Messiah", "Frank Herbert"));
+        before.writeSnapshot();
+
+        // Act
+        CustomCacheManager after = new CustomCacheManager(properties);
+        new BookService(new NoOpBookJournal(), after, 1024, 1);
+        // Drop the start data the new service just cached
+        after.clearAllCaches();
+        long restored = after.restoreSnapshot();
+
+        // Assert
+        assertEquals(1, restored);
+        assertEquals("The Lord of the Rings", ((Book) after.getCache("books").get(1L).get()).getTitle());
+        assertNull(after.getCache("books").get(2L));
+    }
+
+    @Test
+    void testChangeFeed_ReturnsWritesInOrderAndWakesWaiters() {
+        // Arrange
+        long since = bookService.getLatestChangeSequence();
+        CompletableFuture<Void> signal = bookService.awaitChangesAfter(since);
+        assertFalse(signal.isDone());
+
+        // Act
+        Book created = bookService.createBook(new Book(null, "Neuromancer", "William Gibson"));
+        bookService.deleteBook(1L);
+        BookChangeBatch batch = bookService.findChangesSince(since, 10);
+
+        // Assert
+        assertTrue(signal.isDone());
+        assertFalse(batch.isReset());
+        assertEquals(2, batch.getChanges().size());
+        assertEquals(BookChange.Operation.PUT, batch.getChanges().get(0).getOperation());
+        assertEquals(created.getId(), batch.getChanges().get(0).getBookId());
+        assertEquals(BookChange.Operation.DELETE, batch.getChanges().get(1).getOperation());
+        assertEquals(1L, batch.getChanges().get(1).getBookId());
+        assertEquals(since + 2, batch.getNext());
+        assertTrue(bookService.findChangesSince(batch.getNext(), 10).getChanges().isEmpty());
+    }
+
+    @Test
+    void testChangeFeed_WakesWaitersOutsideTheWritersLock() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CompletableFuture<Book> nested = new CompletableFuture<>();
+        bookService.awaitChangesAfter(bookService.getLatestChangeSequence()).thenRun(() -> {
+            // Writes the same book from another thread; it would block if the waker still held the lock
+            Future<Book> write = executor.submit(() -> bookService.updateBook(2L, new Book(null, "Dune Messiah", "Frank Herbert")));
+            try {
+                nested.complete(write.get(5, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                nested.completeExceptionally(e);
+            }
+        });
+
+        // Act
+        try {
+            bookService.updateBook(2L, new Book(null, "Children of Dune", "Frank Herbert"));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertEquals("Dune Messiah", nested.get().getTitle());
+        assertEquals(3, bookService.findBookById(2L).getVersion());
+    }
+
+    @Test
+    void testChangeLog_ResetsReaderThatFellBehind() {
+        // Arrange
+        BookChangeLog log = new BookChangeLog(4, 0);
+        for (long id = 1; id <= 6; id++) {
+            log.append(BookChange.Operation.DELETE, id, null);
+        }
+
+        // Act
+        BookChangeBatch overrun = log.read(0, 10);
+        BookChangeBatch retained = log.read(2, 10);
+
+        // Assert
+        assertTrue(overrun.isReset());
+        assertEquals(6, overrun.getNext());
+        assertFalse(retained.isReset());
+        assertEquals(List.of(3L, 4L, 5L, 6L), retained.getChanges().stream().map(BookChange::getBookId).toList());
+    }
+
+    @Test
+    void testShardedStore_KeepsIdsUniqueAndQueriesInOrder() throws Exception {
+        // Arrange
+        BookService sharded = new BookService(new NoOpBookJournal(), null, 1024, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            int writer = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    sharded.createBook(new Book(null, "Sharded " + writer + "-" + i, "Author " + writer));
+                }
+            }));
+        }
+        for (Future<?> future : writers) {
+            future.get();
+        }
+        executor.shutdown();
+        List<Book> all = sharded.getAllBooks();
+        List<Book> paged = new ArrayList<>();
+        for (List<Book> page = sharded.findBooksAfter(null, 100); !page.isEmpty();
+             page = sharded.findBooksAfter(page.get(page.size() - 1).getId(), 100)) {
+            paged.addAll(page);
+        }
+
+        // Assert
+        Set<Long> ids = new HashSet<>();
+        all.forEach(book -> ids.add(book.getId()));
+        assertEquals(1203, all.size());
+        assertEquals(1203, ids.size());
+        assertEquals(all.stream().sorted(Comparator.comparing(Book::getId)).toList(), all);
+        assertEquals(all, paged);
+        assertEquals(300, sharded.countBooksByAuthor().get("Author 2"));
+        assertEquals(300, sharded.findBooksByAuthor("Author 2").size());
+        List<Book> prefixed = sharded.findBooksByTitlePrefix("sharded 1-1");
+        assertEquals(111, prefixed.size());
+        BookShards layout = new BookShards(8);
+        for (int writer = 0; writer < 4; writer++) {
+            assertEquals(1, sharded.findBooksByAuthor("Author " + writer).stream()
+                    .map(book -> layout.indexOf(book.getId())).distinct().count());
+        }
+        assertEquals("Sharded 1-1", prefixed.get(0).getTitle());
+        assertEquals("Sharded 1-199", prefixed.get(prefixed.size() - 1).getTitle());
+    }
+}
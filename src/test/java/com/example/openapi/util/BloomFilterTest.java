@@ -0,0 +1,36 @@
+package com.example.openapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_NoFalseNegativesAndFalsePositivesNearTarget() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom added = new SplittableRandom(1);
+        SplittableRandom absent = new SplittableRandom(2);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(added.nextLong(), added.nextLong());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(absent.nextLong(), absent.nextLong())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        SplittableRandom replay = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(replay.nextLong(), replay.nextLong()));
+        }
+        assertTrue(falsePositives < 1_000, "false positives: " + falsePositives);
+    }
+}
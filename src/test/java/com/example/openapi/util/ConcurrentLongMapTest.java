@@ -0,0 +1,96 @@
+package com.example.openapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    void testRandomOperations_MatchHashMap() {
+        // Arrange
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(4, 4);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(11);
+
+        // Act: a small key range forces many removals, tombstone reuse and rehashes
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach((value, key) -> visited.put(key, value));
+        assertEquals(expected, visited);
+        List<String> values = new ArrayList<>();
+        map.values().forEach(values::add);
+        assertEquals(expected.size(), values.size());
+    }
+
+    @Test
+    void testCompute_IsAtomicPerKey() throws Exception {
+        // Arrange
+        ConcurrentLongMap<Integer> counters = new ConcurrentLongMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> workers = new ArrayList<>();
+
+        // Act
+        try {
+            for (int t = 0; t < 4; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        counters.compute(i % 500, (key, current) -> current == null ? 1 : current + 1);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertEquals(500, counters.size());
+        for (long key = 0; key < 500; key++) {
+            assertEquals(160, counters.get(key));
+        }
+    }
+
+    @Test
+    void testConditionalOperations() {
+        // Arrange
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        map.put(1, "a");
+
+        // Act & Assert
+        assertEquals("a", map.putIfAbsent(1, "b"));
+        assertNull(map.putIfAbsent(2, "b"));
+        assertFalse(map.remove(1, "x"));
+        assertTrue(map.remove(1, "a"));
+        assertNull(map.computeIfPresent(1, (key, current) -> "c"));
+        assertEquals("d", map.computeIfAbsent(3, key -> "d"));
+        assertNull(map.compute(3, (key, current) -> null));
+        assertFalse(map.containsKey(3));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertThrows(NullPointerException.class, () -> map.put(4, null));
+    }
+}